@@ -0,0 +1,218 @@
+package com.privacy.silentagent;
+
+import android.app.AppOpsManager;
+import android.content.Context;
+import android.media.AudioManager;
+import android.media.AudioRecordingConfiguration;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+final class AccessAttributionMonitor {
+
+    interface Listener {
+        void onForeignAccess();
+    }
+
+    private static final String TAG = "SilentAgent_History";
+
+    private static final class OpenAccess {
+        final long start;
+        int uid = -1;
+        String packageName;
+        int source = AccessHistoryStore.SOURCE_RECORDING_CALLBACK;
+        boolean silenced;
+
+        OpenAccess(long start) {
+            this.start = start;
+        }
+
+        void attribute(ActiveOp op) {
+            if (uid < 0) {
+                uid = op.uid;
+                packageName = op.packageName;
+                source = AccessHistoryStore.SOURCE_APP_OPS;
+            }
+        }
+    }
+
+    private static final class ActiveOp {
+        final int uid;
+        final String packageName;
+
+        ActiveOp(int uid, String packageName) {
+            this.uid = uid;
+            this.packageName = packageName;
+        }
+    }
+
+    private final Context context;
+    private final AudioManager audioManager;
+    private final AccessHistoryStore store;
+    private final Listener listener;
+    private final Map<String, ActiveOp> activeOps = new HashMap<>();
+    private final Map<Integer, OpenAccess> openSessions = new HashMap<>();
+
+    private HandlerThread thread;
+    private Handler handler;
+    private Object opListener;
+    private AudioManager.AudioRecordingCallback recordingCallback;
+
+    AccessAttributionMonitor(Context context, AudioManager audioManager, AccessHistoryStore store,
+            Listener listener) {
+        this.context = context.getApplicationContext();
+        this.audioManager = audioManager;
+        this.store = store;
+        this.listener = listener;
+    }
+
+    void start() {
+        thread = new HandlerThread("SilentAgent-History", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            AppOpsManager appOps = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
+            if (appOps != null) {
+                AppOpsManager.OnOpActiveChangedListener listener = new AppOpsManager.OnOpActiveChangedListener() {
+                    @Override
+                    public void onOpActiveChanged(String op, int uid, String packageName, boolean active) {
+                        onOpActive(uid, packageName, active);
+                    }
+                };
+                appOps.startWatchingActive(new String[] {AppOpsManager.OPSTR_RECORD_AUDIO}, new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        handler.post(command);
+                    }
+                }, listener);
+                opListener = listener;
+            }
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            recordingCallback = new AudioManager.AudioRecordingCallback() {
+                @Override
+                public void onRecordingConfigChanged(List<AudioRecordingConfiguration> configs) {
+                    onRecordingConfigs(configs);
+                }
+            };
+            audioManager.registerAudioRecordingCallback(recordingCallback, handler);
+        }
+    }
+
+    void stop() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && opListener != null) {
+            AppOpsManager appOps = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
+            if (appOps != null) {
+                appOps.stopWatchingActive((AppOpsManager.OnOpActiveChangedListener) opListener);
+            }
+            opListener = null;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && recordingCallback != null) {
+            audioManager.unregisterAudioRecordingCallback(recordingCallback);
+            recordingCallback = null;
+        }
+        if (handler != null) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    closeAll(AccessHistoryStore.OUTCOME_INTERRUPTED);
+                }
+            });
+            thread.quitSafely();
+            handler = null;
+            thread = null;
+        }
+    }
+
+    long trimCaches() {
+        return store.trimCache();
+    }
+
+    private void onOpActive(int uid, String packageName, boolean active) {
+        if (uid == Process.myUid()) {
+            return;
+        }
+        String key = uid + "/" + packageName;
+        if (active) {
+            activeOps.put(key, new ActiveOp(uid, packageName));
+            attributeOpenSessions();
+        } else {
+            activeOps.remove(key);
+        }
+    }
+
+    private void attributeOpenSessions() {
+        if (activeOps.size() != 1) {
+            return;
+        }
+        ActiveOp op = activeOps.values().iterator().next();
+        for (OpenAccess access : openSessions.values()) {
+            access.attribute(op);
+        }
+    }
+
+    private void onRecordingConfigs(List<AudioRecordingConfiguration> configs) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<Integer> active = new HashSet<>();
+        if (configs != null) {
+            for (AudioRecordingConfiguration config : configs) {
+                int sessionId = config.getClientAudioSessionId();
+                if (OwnSessions.contains(sessionId)) {
+                    continue;
+                }
+                active.add(sessionId);
+                OpenAccess access = openSessions.get(sessionId);
+                if (access == null) {
+                    access = new OpenAccess(now);
+                    openSessions.put(sessionId, access);
+                    listener.onForeignAccess();
+                }
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && config.isClientSilenced()) {
+                    access.silenced = true;
+                }
+            }
+        }
+        attributeOpenSessions();
+
+        Iterator<Map.Entry<Integer, OpenAccess>> iterator = openSessions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, OpenAccess> entry = iterator.next();
+            if (!active.contains(entry.getKey())) {
+                OpenAccess access = entry.getValue();
+                write(access, now, access.silenced
+                    ? AccessHistoryStore.OUTCOME_SILENCED : AccessHistoryStore.OUTCOME_RECORDED);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void closeAll(int outcome) {
+        long now = System.currentTimeMillis();
+        for (OpenAccess access : openSessions.values()) {
+            write(access, now, access.silenced ? AccessHistoryStore.OUTCOME_SILENCED : outcome);
+        }
+        activeOps.clear();
+        openSessions.clear();
+    }
+
+    private void write(OpenAccess access, long end, int outcome) {
+        try {
+            store.append(access.start, end, access.uid, access.packageName, outcome, access.source);
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Access event write failed", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.privacy.silentagent;
+
+import android.content.Context;
+import android.text.format.DateUtils;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class AccessHistoryAdapter extends BaseAdapter {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int CACHED_PAGES = 4;
+
+    private final Context context;
+    private final AccessHistoryStore store;
+    private final int count;
+    private final int padding;
+    private final Map<Integer, List<AccessHistoryStore.Event>> pages =
+        new LinkedHashMap<Integer, List<AccessHistoryStore.Event>>(CACHED_PAGES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<AccessHistoryStore.Event>> eldest) {
+                return size() > CACHED_PAGES;
+            }
+        };
+
+    AccessHistoryAdapter(Context context, AccessHistoryStore store) {
+        this.context = context;
+        this.store = store;
+        this.count = store.size();
+        this.padding = (int) (12 * context.getResources().getDisplayMetrics().density);
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public AccessHistoryStore.Event getItem(int position) {
+        int page = position / PAGE_SIZE;
+        List<AccessHistoryStore.Event> events = pages.get(page);
+        if (events == null) {
+            try {
+                events = store.readNewestFirst(page * PAGE_SIZE, PAGE_SIZE);
+            } catch (Exception e) {
+                android.util.Log.w("SilentAgent_History", "History page load failed", e);
+                events = Collections.emptyList();
+            }
+            pages.put(page, events);
+        }
+        int index = position % PAGE_SIZE;
+        return index < events.size() ? events.get(index) : null;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView view = convertView instanceof TextView ? (TextView) convertView : new TextView(context);
+        view.setPadding(padding, padding, padding, padding);
+        AccessHistoryStore.Event event = getItem(position);
+        if (event == null) {
+            view.setText("");
+            return view;
+        }
+
+        String packageName = store.packageName(event.packageIndex);
+        String app = packageName != null ? packageName : context.getString(R.string.access_unknown_app);
+        String time = DateUtils.formatDateTime(context, event.start,
+            DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_TIME | DateUtils.FORMAT_ABBREV_MONTH);
+        String duration = DateUtils.formatElapsedTime(Math.max(0, event.end - event.start) / 1000);
+        view.setText(context.getString(R.string.access_history_row, time, app, duration, outcomeLabel(event.outcome)));
+        return view;
+    }
+
+    private String outcomeLabel(int outcome) {
+        switch (outcome) {
+            case AccessHistoryStore.OUTCOME_SILENCED:
+                return context.getString(R.string.access_outcome_silenced);
+            case AccessHistoryStore.OUTCOME_INTERRUPTED:
+                return context.getString(R.string.access_outcome_interrupted);
+            default:
+                return context.getString(R.string.access_outcome_recorded);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.privacy.silentagent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class AccessHistoryStore {
+
+    static final String EVENTS_FILE = "access_history.bin";
+    static final String PACKAGES_FILE = "access_packages.txt";
+
+    static final int OUTCOME_RECORDED = 0;
+    static final int OUTCOME_SILENCED = 1;
+    static final int OUTCOME_INTERRUPTED = 2;
+
+    static final int SOURCE_APP_OPS = 1;
+    static final int SOURCE_RECORDING_CALLBACK = 2;
+
+    static final int NO_PACKAGE = -1;
+
+    static final int MAX_EVENTS = 4096;
+    static final long MAX_AGE = 90L * 24 * 60 * 60 * 1000;
+
+    private static final int RECORD_SIZE = 32;
+    private static final int COMPACT_SLACK = 512;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final class Event {
+        final long start;
+        final long end;
+        final int uid;
+        final int packageIndex;
+        final int outcome;
+        final int source;
+
+        Event(long start, long end, int uid, int packageIndex, int outcome, int source) {
+            this.start = start;
+            this.end = end;
+            this.uid = uid;
+            this.packageIndex = packageIndex;
+            this.outcome = outcome;
+            this.source = source;
+        }
+    }
+
+    private final File eventsFile;
+    private final File packagesFile;
+    private final List<String> packages = new ArrayList<>();
+    private final Map<String, Integer> packageIndexes = new HashMap<>();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+    private AccessHistoryStore(File directory) {
+        this.eventsFile = new File(directory, EVENTS_FILE);
+        this.packagesFile = new File(directory, PACKAGES_FILE);
+    }
+
+    static AccessHistoryStore open(File directory) throws IOException {
+        AccessHistoryStore store = new AccessHistoryStore(directory);
+        store.loadPackages();
+        return store;
+    }
+
+    static AccessHistoryStore openForWriting(File directory, long now) throws IOException {
+        AccessHistoryStore store = open(directory);
+        store.compactIfNeeded(now, true);
+        return store;
+    }
+
+    synchronized void append(long start, long end, int uid, String packageName, int outcome, int source)
+            throws IOException {
+        int packageIndex = indexOf(packageName);
+        record.clear();
+        record.putLong(start).putLong(end).putInt(uid).putInt(packageIndex).putInt(outcome).putInt(source);
+
+        RandomAccessFile raf = new RandomAccessFile(eventsFile, "rw");
+        try {
+            long length = raf.length();
+            raf.seek(length - length % RECORD_SIZE);
+            raf.write(record.array(), 0, RECORD_SIZE);
+        } finally {
+            raf.close();
+        }
+        compactIfNeeded(end, false);
+    }
+
+    private void compactIfNeeded(long now, boolean checkAge) throws IOException {
+        int count = size();
+        if (count >= MAX_EVENTS + COMPACT_SLACK) {
+            compact(now);
+        } else if (checkAge && count > 0 && readEnd(0) < now - MAX_AGE) {
+            compact(now);
+        }
+    }
+
+    private long readEnd(int index) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(eventsFile, "r");
+        try {
+            raf.seek((long) index * RECORD_SIZE + 8);
+            return raf.readLong();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void compact(long now) throws IOException {
+        int count = size();
+        byte[] buffer = new byte[count * RECORD_SIZE];
+        RandomAccessFile raf = new RandomAccessFile(eventsFile, "r");
+        try {
+            raf.readFully(buffer);
+        } finally {
+            raf.close();
+        }
+
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        long cutoff = now - MAX_AGE;
+        int first = Math.max(0, count - MAX_EVENTS);
+        while (first < count && view.getLong(first * RECORD_SIZE + 8) < cutoff) {
+            first++;
+        }
+
+        File temp = new File(eventsFile.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            out.write(buffer, first * RECORD_SIZE, (count - first) * RECORD_SIZE);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(eventsFile)) {
+            throw new IOException("Access history compaction rename failed");
+        }
+    }
+
+    synchronized int size() {
+        return (int) (eventsFile.length() / RECORD_SIZE);
+    }
+
+    synchronized List<Event> readNewestFirst(int offset, int limit) throws IOException {
+        List<Event> events = new ArrayList<>();
+        int count = size();
+        int first = count - 1 - offset;
+        int last = Math.max(0, first - limit + 1);
+        if (first < 0 || limit <= 0) {
+            return events;
+        }
+
+        byte[] buffer = new byte[(first - last + 1) * RECORD_SIZE];
+        RandomAccessFile raf = new RandomAccessFile(eventsFile, "r");
+        try {
+            raf.seek((long) last * RECORD_SIZE);
+            raf.readFully(buffer);
+        } finally {
+            raf.close();
+        }
+
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        for (int i = first - last; i >= 0; i--) {
+            int base = i * RECORD_SIZE;
+            events.add(new Event(view.getLong(base), view.getLong(base + 8), view.getInt(base + 16),
+                view.getInt(base + 20), view.getInt(base + 24), view.getInt(base + 28)));
+        }
+        return events;
+    }
+
+    synchronized String packageName(int packageIndex) {
+        if (packageIndex >= packages.size()) {
+            reloadPackages();
+        }
+        return packageIndex >= 0 && packageIndex < packages.size() ? packages.get(packageIndex) : null;
+    }
+
+    synchronized long trimCache() {
+        long released = 0;
+        for (String name : packages) {
+            released += 2L * name.length() + 64;
+        }
+        packages.clear();
+        packageIndexes.clear();
+        return released;
+    }
+
+    private int indexOf(String packageName) throws IOException {
+        if (packageName == null || packageName.isEmpty()) {
+            return NO_PACKAGE;
+        }
+        Integer existing = packageIndexes.get(packageName);
+        if (existing != null) {
+            return existing;
+        }
+        reloadPackages();
+        existing = packageIndexes.get(packageName);
+        if (existing != null) {
+            return existing;
+        }
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(packagesFile, true), UTF_8);
+        try {
+            writer.write(packageName);
+            writer.write('\n');
+        } finally {
+            writer.close();
+        }
+        int index = packages.size();
+        packages.add(packageName);
+        packageIndexes.put(packageName, index);
+        return index;
+    }
+
+    private void reloadPackages() {
+        try {
+            loadPackages();
+        } catch (IOException e) {
+            android.util.Log.w("SilentAgent_History", "Package dictionary reload failed", e);
+        }
+    }
+
+    private void loadPackages() throws IOException {
+        if (!packagesFile.exists()) {
+            return;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(packagesFile), UTF_8));
+        try {
+            int index = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (index >= packages.size()) {
+                    packages.add(line);
+                    packageIndexes.put(line, index);
+                }
+                index++;
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
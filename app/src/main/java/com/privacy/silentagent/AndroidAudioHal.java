@@ -0,0 +1,108 @@
+package com.privacy.silentagent;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.AudioTimestamp;
+import android.os.Build;
+import android.os.SystemClock;
+import com.privacy.silentagent.core.AudioHal;
+import com.privacy.silentagent.core.Clock;
+import com.privacy.silentagent.core.Recorder;
+
+final class AndroidAudioHal implements AudioHal {
+
+    static final Clock CLOCK = new Clock() {
+        @Override
+        public long elapsedMillis() {
+            return SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public long elapsedNanos() {
+            return SystemClock.elapsedRealtimeNanos();
+        }
+    };
+
+    @Override
+    public int getMinBufferSize(int sampleRate) {
+        return AudioRecord.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+    }
+
+    @Override
+    public Recorder open(int audioSource, int sampleRate, int bufferSize) {
+        AudioRecord record = new AudioRecord(audioSource, sampleRate, AudioFormat.CHANNEL_IN_MONO,
+            AudioFormat.ENCODING_PCM_16BIT, bufferSize);
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            record.release();
+            return null;
+        }
+        OwnSessions.register(record.getAudioSessionId());
+        return new AndroidRecorder(record);
+    }
+
+    private static final class AndroidRecorder implements Recorder {
+
+        private final AudioRecord record;
+        private final AudioTimestamp timestamp = new AudioTimestamp();
+
+        AndroidRecorder(AudioRecord record) {
+            this.record = record;
+        }
+
+        @Override
+        public boolean start() {
+            record.startRecording();
+            return record.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING;
+        }
+
+        @Override
+        public boolean isRecording() {
+            return record.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return record.read(buffer, offset, length, AudioRecord.READ_NON_BLOCKING);
+        }
+
+        @Override
+        public boolean supportsTimestamps() {
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+        }
+
+        @Override
+        public boolean getTimestamp(long[] positionAndNanos) {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N
+                    || record.getTimestamp(timestamp, AudioTimestamp.TIMEBASE_MONOTONIC) != AudioRecord.SUCCESS) {
+                return false;
+            }
+            positionAndNanos[0] = timestamp.framePosition;
+            positionAndNanos[1] = timestamp.nanoTime;
+            return true;
+        }
+
+        @Override
+        public int getSessionId() {
+            return record.getAudioSessionId();
+        }
+
+        @Override
+        public String describe() {
+            if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+                return "uninitialized";
+            }
+            return isRecording() ? "recording" : "stopped";
+        }
+
+        @Override
+        public void stop() {
+            record.stop();
+        }
+
+        @Override
+        public void release() {
+            OwnSessions.unregister(record.getAudioSessionId());
+            record.release();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.privacy.silentagent;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+public class BootReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        try {
+            String action = intent.getAction();
+            if (!Intent.ACTION_LOCKED_BOOT_COMPLETED.equals(action) && !Intent.ACTION_BOOT_COMPLETED.equals(action)) {
+                return;
+            }
+
+            ScheduleReceiver.reconcile(context);
+
+            GuardSettings settings = GuardSettings.load(context);
+            if (!settings.isProtectionActive(System.currentTimeMillis())) {
+                android.util.Log.d("SilentAgent_Boot", "Protection disabled, skipping boot start (" + action + ")");
+                return;
+            }
+
+            Intent serviceIntent = new Intent(context, MicGuardService.class);
+            serviceIntent.putExtra("security_enhanced", settings.getBoolean(GuardSettings.KEY_SECURITY_ENHANCED, true));
+            serviceIntent.putExtra(MicGuardService.EXTRA_BOOT_START, true);
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                context.startForegroundService(serviceIntent);
+            } else {
+                context.startService(serviceIntent);
+            }
+            android.util.Log.d("SilentAgent_Boot", "Boot start requested (" + action + ")");
+        } catch (Exception e) {
+            android.util.Log.e("SilentAgent_Boot", "Boot start failed", e);
+        }
+    }
+}
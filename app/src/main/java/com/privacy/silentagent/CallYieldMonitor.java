@@ -0,0 +1,273 @@
+package com.privacy.silentagent;
+
+import android.app.AppOpsManager;
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.media.AudioManager;
+import android.media.AudioRecordingConfiguration;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.telephony.PhoneStateListener;
+import android.telephony.TelephonyManager;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+final class CallYieldMonitor {
+
+    interface Listener {
+        void onYieldChanged(boolean yield, String reason);
+    }
+
+    private static final long FOREGROUND_LOOKBACK = 5 * 60 * 1000;
+    private static final long MODE_POLL_INTERVAL = 2000;
+
+    private final Context context;
+    private final AudioManager audioManager;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private HandlerThread thread;
+    private volatile Handler handler;
+    private volatile Set<String> allowlist = Collections.emptySet();
+    private int lastMode = AudioManager.MODE_NORMAL;
+
+    private final Runnable evaluateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            evaluate();
+        }
+    };
+    private final Runnable modePoll = new Runnable() {
+        @Override
+        public void run() {
+            if (audioManager.getMode() != lastMode) {
+                evaluate();
+            }
+            if (shouldPollMode()) {
+                handler.postDelayed(this, MODE_POLL_INTERVAL);
+            }
+        }
+    };
+
+    private Object modeChangedListener;
+    private AudioManager.AudioRecordingCallback recordingCallback;
+    private PhoneStateListener phoneStateListener;
+    private volatile boolean competingRecording = false;
+    private boolean yielding = false;
+    private String yieldReason = null;
+
+    CallYieldMonitor(Context context, AudioManager audioManager, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.audioManager = audioManager;
+        this.listener = listener;
+    }
+
+    void start() {
+        thread = new HandlerThread("SilentAgent-Yield");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            AudioManager.OnModeChangedListener modeListener = new AudioManager.OnModeChangedListener() {
+                @Override
+                public void onModeChanged(int mode) {
+                    evaluate();
+                }
+            };
+            audioManager.addOnModeChangedListener(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    handler.post(command);
+                }
+            }, modeListener);
+            modeChangedListener = modeListener;
+        } else {
+            TelephonyManager telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+            if (telephonyManager != null) {
+                phoneStateListener = new PhoneStateListener() {
+                    @Override
+                    public void onCallStateChanged(int state, String phoneNumber) {
+                        requestEvaluate();
+                    }
+                };
+                telephonyManager.listen(phoneStateListener, PhoneStateListener.LISTEN_CALL_STATE);
+            }
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            recordingCallback = new AudioManager.AudioRecordingCallback() {
+                @Override
+                public void onRecordingConfigChanged(List<AudioRecordingConfiguration> configs) {
+                    updateCompetingRecording(configs);
+                    updateModePoll();
+                    evaluate();
+                }
+            };
+            audioManager.registerAudioRecordingCallback(recordingCallback, handler);
+            updateCompetingRecording(audioManager.getActiveRecordingConfigurations());
+        }
+        updateModePoll();
+        requestEvaluate();
+    }
+
+    void stop() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && modeChangedListener != null) {
+            audioManager.removeOnModeChangedListener((AudioManager.OnModeChangedListener) modeChangedListener);
+            modeChangedListener = null;
+        }
+        if (phoneStateListener != null) {
+            TelephonyManager telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+            if (telephonyManager != null) {
+                telephonyManager.listen(phoneStateListener, PhoneStateListener.LISTEN_NONE);
+            }
+            phoneStateListener = null;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && recordingCallback != null) {
+            audioManager.unregisterAudioRecordingCallback(recordingCallback);
+            recordingCallback = null;
+        }
+        if (thread != null) {
+            handler.removeCallbacksAndMessages(null);
+            thread.quitSafely();
+            thread = null;
+        }
+    }
+
+    void requestEvaluate() {
+        Handler active = handler;
+        if (active != null) {
+            active.post(evaluateRunnable);
+        }
+    }
+
+    void setAllowlist(Set<String> packages) {
+        allowlist = packages;
+        requestEvaluate();
+    }
+
+    synchronized boolean isYielding() {
+        return yielding;
+    }
+
+    synchronized String getYieldReason() {
+        return yieldReason;
+    }
+
+    private void evaluate() {
+        String reason = null;
+        final int mode = audioManager.getMode();
+        lastMode = mode;
+        if (mode == AudioManager.MODE_IN_CALL) {
+            reason = "call";
+        } else if (mode == AudioManager.MODE_IN_COMMUNICATION) {
+            reason = "communication";
+        } else if (competingRecording) {
+            String allowlisted = findForegroundAllowlistedPackage();
+            if (allowlisted != null) {
+                reason = "allowlisted:" + allowlisted;
+            }
+        }
+
+        boolean changed;
+        synchronized (this) {
+            boolean yield = reason != null;
+            changed = yield != yielding;
+            yielding = yield;
+            yieldReason = reason;
+        }
+        if (changed) {
+            final String changedReason = reason;
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onYieldChanged(changedReason != null, changedReason != null ? changedReason : "mode " + mode);
+                }
+            });
+        }
+    }
+
+    private boolean shouldPollMode() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return false;
+        }
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.N || competingRecording;
+    }
+
+    private void updateModePoll() {
+        handler.removeCallbacks(modePoll);
+        if (shouldPollMode()) {
+            handler.postDelayed(modePoll, MODE_POLL_INTERVAL);
+        }
+    }
+
+    private void updateCompetingRecording(List<AudioRecordingConfiguration> configs) {
+        boolean competing = false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && configs != null) {
+            for (AudioRecordingConfiguration config : configs) {
+                if (!OwnSessions.contains(config.getClientAudioSessionId())) {
+                    competing = true;
+                    break;
+                }
+            }
+        }
+        competingRecording = competing;
+    }
+
+    private String findForegroundAllowlistedPackage() {
+        Set<String> packages = allowlist;
+        if (packages.isEmpty()) {
+            return null;
+        }
+        String foreground = findForegroundPackage(context);
+        return foreground != null && packages.contains(foreground) ? foreground : null;
+    }
+
+    static String findForegroundPackage(Context context) {
+        if (!hasUsageAccess(context)) {
+            return null;
+        }
+
+        UsageStatsManager usageStats = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+        if (usageStats == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        UsageEvents events = usageStats.queryEvents(now - FOREGROUND_LOOKBACK, now);
+        UsageEvents.Event event = new UsageEvents.Event();
+        String foreground = null;
+        while (events.hasNextEvent()) {
+            events.getNextEvent(event);
+            if (event.getEventType() == UsageEvents.Event.MOVE_TO_FOREGROUND) {
+                foreground = event.getPackageName();
+            }
+        }
+        return foreground;
+    }
+
+    static Set<String> parseAllowlist(String raw) {
+        Set<String> packages = new HashSet<>();
+        for (String entry : raw.split(",")) {
+            String packageName = entry.trim();
+            if (!packageName.isEmpty()) {
+                packages.add(packageName);
+            }
+        }
+        return Collections.unmodifiableSet(packages);
+    }
+
+    static boolean hasUsageAccess(Context context) {
+        AppOpsManager appOps = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
+        if (appOps == null) {
+            return false;
+        }
+        int mode = appOps.checkOpNoThrow(AppOpsManager.OPSTR_GET_USAGE_STATS, Process.myUid(), context.getPackageName());
+        return mode == AppOpsManager.MODE_ALLOWED;
+    }
+}
@@ -0,0 +1,46 @@
+package com.privacy.silentagent;
+
+final class CaptureLoop {
+
+    static final long SHUTDOWN_BUDGET = 250;
+
+    interface Step {
+        long run();
+    }
+
+    private CaptureLoop() {
+    }
+
+    static void run(StopSignal signal, Step step) {
+        while (!signal.isStopped()) {
+            long generation = signal.generation();
+            long delay = step.run();
+            if (delay < 0 || signal.await(delay, generation)) {
+                break;
+            }
+        }
+    }
+
+    static boolean awaitWorkers(long budgetMs, Thread... workers) {
+        long deadline = System.nanoTime() + Math.max(0, budgetMs) * 1000000L;
+        boolean drained = true;
+        for (Thread worker : workers) {
+            if (worker == null || worker == Thread.currentThread()) {
+                continue;
+            }
+            long remaining = (deadline - System.nanoTime()) / 1000000L;
+            if (remaining > 0) {
+                try {
+                    worker.join(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (worker.isAlive()) {
+                worker.interrupt();
+                drained = false;
+            }
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,100 @@
+package com.privacy.silentagent;
+
+final class ErrorAggregator {
+
+    interface Reporter {
+        void onRepeated(String site, String type, int repeats, long windowMs);
+    }
+
+    static final int DEFAULT_CAPACITY = 64;
+    private static final int PROBE_LENGTH = 4;
+
+    private final long windowMs;
+    private final Reporter reporter;
+    private final int mask;
+    private final long[] fingerprints;
+    private final String[] sites;
+    private final String[] types;
+    private final int[] repeats;
+    private final long[] windowStarts;
+    private final boolean[] used;
+
+    ErrorAggregator(int capacity, long windowMs, Reporter reporter) {
+        int size = Integer.highestOneBit(Math.max(PROBE_LENGTH, capacity - 1)) << 1;
+        this.windowMs = windowMs;
+        this.reporter = reporter;
+        this.mask = size - 1;
+        this.fingerprints = new long[size];
+        this.sites = new String[size];
+        this.types = new String[size];
+        this.repeats = new int[size];
+        this.windowStarts = new long[size];
+        this.used = new boolean[size];
+    }
+
+    synchronized boolean record(String site, Throwable error, long now) {
+        String type = error != null ? error.getClass().getName() : "none";
+        long fingerprint = fingerprint(site, type);
+        int home = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+
+        int victim = home;
+        for (int i = 0; i < PROBE_LENGTH; i++) {
+            int slot = (home + i) & mask;
+            if (used[slot] && fingerprints[slot] == fingerprint) {
+                if (now - windowStarts[slot] < windowMs) {
+                    repeats[slot]++;
+                    return false;
+                }
+                flushSlot(slot);
+                windowStarts[slot] = now;
+                return true;
+            }
+            if (!used[slot]) {
+                victim = slot;
+                break;
+            }
+            if (windowStarts[slot] < windowStarts[victim]) {
+                victim = slot;
+            }
+        }
+
+        if (used[victim]) {
+            flushSlot(victim);
+        }
+        used[victim] = true;
+        fingerprints[victim] = fingerprint;
+        sites[victim] = site;
+        types[victim] = type;
+        repeats[victim] = 0;
+        windowStarts[victim] = now;
+        return true;
+    }
+
+    synchronized void drain(long now) {
+        for (int slot = 0; slot <= mask; slot++) {
+            if (used[slot] && repeats[slot] > 0 && now - windowStarts[slot] >= windowMs) {
+                flushSlot(slot);
+            }
+        }
+    }
+
+    synchronized void drainAll() {
+        for (int slot = 0; slot <= mask; slot++) {
+            if (used[slot]) {
+                flushSlot(slot);
+            }
+        }
+    }
+
+    private void flushSlot(int slot) {
+        if (repeats[slot] > 0) {
+            reporter.onRepeated(sites[slot], types[slot], repeats[slot], windowMs);
+            repeats[slot] = 0;
+        }
+    }
+
+    private static long fingerprint(String site, String type) {
+        long high = site != null ? site.hashCode() : 0;
+        return (high << 32) | (type.hashCode() & 0xffffffffL);
+    }
+}
@@ -0,0 +1,325 @@
+package com.privacy.silentagent;
+
+import android.content.Context;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioRecord;
+import android.media.AudioRecordingConfiguration;
+import android.media.MediaRecorder;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Debug;
+import android.os.SystemClock;
+import com.privacy.silentagent.core.CaptureTuning;
+import com.privacy.silentagent.core.GuardEngine;
+import com.privacy.silentagent.core.HoldQualityMonitor;
+import com.privacy.silentagent.core.PowerProfile;
+import com.privacy.silentagent.core.RetryPolicy;
+import com.privacy.silentagent.core.SilenceDetector;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+final class GuardCalibration {
+
+    interface Listener {
+        void onCandidate(int index, int total, CaptureTuning candidate);
+    }
+
+    static final class Result {
+        final CaptureTuning tuning;
+        boolean held;
+        boolean silenced;
+        boolean frozen;
+        boolean probeBlocked;
+        long measuredMs;
+        long cpuNanos;
+        long wakeups;
+        int errors;
+        long currentSum;
+        int currentSamples;
+
+        Result(CaptureTuning tuning) {
+            this.tuning = tuning;
+        }
+
+        boolean isEffective() {
+            return held && !silenced && !frozen && errors == 0;
+        }
+
+        double cpuMsPerMinute() {
+            return measuredMs > 0 ? cpuNanos / 1e6 * 60000.0 / measuredMs : 0;
+        }
+
+        double wakeupsPerSecond() {
+            return measuredMs > 0 ? wakeups * 1000.0 / measuredMs : 0;
+        }
+
+        long averageCurrentMicroAmps() {
+            return currentSamples > 0 ? currentSum / currentSamples : -1;
+        }
+
+        String describe() {
+            long current = averageCurrentMicroAmps();
+            return String.format(Locale.ROOT, "%s: cpu %.1fms/min, %.1f wakeups/s, %s, %s%s%s",
+                tuning.describe(), cpuMsPerMinute(), wakeupsPerSecond(),
+                current >= 0 ? (current / 1000) + "mA" : "current n/a",
+                !held ? "not held" : silenced ? "silenced" : frozen ? "frozen" : "live hold",
+                errors > 0 ? ", " + errors + " errors" : "",
+                probeBlocked ? ", blocks probe" : "");
+        }
+    }
+
+    private static final int[] SOURCES = {
+        PowerProfile.AUDIO_SOURCE_VOICE_RECOGNITION, PowerProfile.AUDIO_SOURCE_MIC
+    };
+    private static final int[] RATES = {8000, 16000};
+    private static final int[] BUFFER_MULTIPLIERS = {1, 4};
+    private static final int[] LOOP_SLEEPS = {15, 40, 80};
+
+    private static final long SETTLE_DURATION = 1000;
+    private static final long MEASURE_DURATION = 8000;
+    private static final long CURRENT_SAMPLE_INTERVAL = 1000;
+    private static final long PROBE_DURATION = 700;
+    private static final int PROBE_RATE = 16000;
+
+    private final AudioManager audioManager;
+    private final BatteryManager batteryManager;
+    private final Listener listener;
+
+    GuardCalibration(Context context, AudioManager audioManager, Listener listener) {
+        this.audioManager = audioManager;
+        this.batteryManager = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        this.listener = listener;
+    }
+
+    static List<CaptureTuning> candidates() {
+        List<CaptureTuning> candidates = new ArrayList<>();
+        for (int source : SOURCES) {
+            for (int rate : RATES) {
+                for (int multiplier : BUFFER_MULTIPLIERS) {
+                    for (int sleep : LOOP_SLEEPS) {
+                        candidates.add(new CaptureTuning(source, rate, multiplier, sleep));
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q;
+    }
+
+    static long estimatedDuration() {
+        return candidates().size() * (SETTLE_DURATION + MEASURE_DURATION + PROBE_DURATION);
+    }
+
+    List<Result> run(StopSignal signal) {
+        List<CaptureTuning> candidates = candidates();
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < candidates.size() && !signal.isStopped(); i++) {
+            listener.onCandidate(i, candidates.size(), candidates.get(i));
+            results.add(measure(candidates.get(i), signal));
+        }
+        rank(results);
+        return results;
+    }
+
+    static void rank(List<Result> results) {
+        Collections.sort(results, new Comparator<Result>() {
+            @Override
+            public int compare(Result a, Result b) {
+                if (a.isEffective() != b.isEffective()) {
+                    return a.isEffective() ? -1 : 1;
+                }
+                long currentA = a.averageCurrentMicroAmps();
+                long currentB = b.averageCurrentMicroAmps();
+                if (currentA >= 0 && currentB >= 0 && currentA != currentB) {
+                    return currentA < currentB ? -1 : 1;
+                }
+                int cpu = Double.compare(a.cpuMsPerMinute(), b.cpuMsPerMinute());
+                if (cpu != 0) {
+                    return cpu;
+                }
+                return Double.compare(a.wakeupsPerSecond(), b.wakeupsPerSecond());
+            }
+        });
+    }
+
+    static String report(List<Result> ranked) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < ranked.size(); i++) {
+            out.append(i + 1).append(". ").append(ranked.get(i).describe()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private Result measure(CaptureTuning candidate, StopSignal signal) {
+        final Result result = new Result(candidate);
+        GuardEngine engine = new GuardEngine(new AndroidAudioHal(), AndroidAudioHal.CLOCK, new Random(),
+            new GuardEngine.Listener() {
+                @Override
+                public void onHeld(int sampleRate, int sessionId) {
+                    result.held = true;
+                }
+
+                @Override
+                public void onReleased() {
+                }
+
+                @Override
+                public void onRecovered(int consecutiveErrors) {
+                }
+
+                @Override
+                public void onError(int errorCode, RetryPolicy.ErrorClass errorClass, int consecutiveErrors,
+                                    int totalErrors, RetryPolicy.CircuitState circuitState, long retryDelay) {
+                    result.errors++;
+                }
+
+                @Override
+                public void onModeChanged(boolean highPower, int sampleRate) {
+                }
+
+                @Override
+                public void onHoldQualityChanged(int verdict, int sampleRate) {
+                    if ((verdict & HoldQualityMonitor.VERDICT_FROZEN) != 0) {
+                        result.frozen = true;
+                    }
+                }
+
+                @Override
+                public void onSilenceTransition(int transition) {
+                    if (transition == SilenceDetector.TRANSITION_SILENCED) {
+                        result.silenced = true;
+                    }
+                }
+
+                @Override
+                public void onEvent(String message) {
+                }
+
+                @Override
+                public void onFailure(String message, Exception e) {
+                    result.errors++;
+                }
+            });
+        engine.setTuning(candidate);
+        engine.start();
+        try {
+            long settleUntil = SystemClock.elapsedRealtime() + SETTLE_DURATION;
+            while (SystemClock.elapsedRealtime() < settleUntil) {
+                if (signal.await(engine.step())) {
+                    return result;
+                }
+            }
+
+            result.silenced = false;
+            result.frozen = false;
+            result.errors = 0;
+            long start = SystemClock.elapsedRealtime();
+            long end = start + MEASURE_DURATION;
+            long cpuStart = Debug.threadCpuTimeNanos();
+            long nextCurrentSample = start;
+            long now = start;
+            while (now < end) {
+                if (now >= nextCurrentSample) {
+                    sampleCurrent(result);
+                    if (isClientSilenced(engine.getSessionId())) {
+                        result.silenced = true;
+                    }
+                    nextCurrentSample = now + CURRENT_SAMPLE_INTERVAL;
+                }
+                long delay = engine.step();
+                result.wakeups++;
+                if (signal.await(delay)) {
+                    break;
+                }
+                now = SystemClock.elapsedRealtime();
+            }
+            result.cpuNanos = Debug.threadCpuTimeNanos() - cpuStart;
+            result.measuredMs = SystemClock.elapsedRealtime() - start;
+            result.held = result.held && engine.isHolding();
+
+            result.probeBlocked = !signal.isStopped() && engine.isHolding() && isProbeBlocked(signal);
+        } finally {
+            engine.stop();
+            engine.releaseRecorder();
+        }
+        return result;
+    }
+
+    private void sampleCurrent(Result result) {
+        if (batteryManager == null) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && batteryManager.isCharging()) {
+            return;
+        }
+        int current = batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CURRENT_NOW);
+        if (current == Integer.MIN_VALUE || current == 0) {
+            return;
+        }
+        result.currentSum += Math.abs(current);
+        result.currentSamples++;
+    }
+
+    private boolean isProbeBlocked(StopSignal signal) {
+        AudioRecord probe = null;
+        try {
+            int minBuffer = AudioRecord.getMinBufferSize(PROBE_RATE, AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT);
+            if (minBuffer <= 0) {
+                return false;
+            }
+            probe = new AudioRecord(MediaRecorder.AudioSource.MIC, PROBE_RATE, AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT, minBuffer * 2);
+            if (probe.getState() != AudioRecord.STATE_INITIALIZED) {
+                return true;
+            }
+            OwnSessions.register(probe.getAudioSessionId());
+            probe.startRecording();
+            if (probe.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) {
+                return true;
+            }
+
+            SilenceDetector detector = new SilenceDetector(PROBE_RATE);
+            byte[] buffer = new byte[minBuffer];
+            long deadline = SystemClock.elapsedRealtime() + PROBE_DURATION;
+            while (SystemClock.elapsedRealtime() < deadline && !signal.isStopped()) {
+                int read = probe.read(buffer, 0, buffer.length);
+                if (read < 0) {
+                    return true;
+                }
+                detector.process(buffer, read);
+            }
+            return detector.isSilenced() || isClientSilenced(probe.getAudioSessionId());
+        } catch (Exception e) {
+            return true;
+        } finally {
+            if (probe != null) {
+                try {
+                    OwnSessions.unregister(probe.getAudioSessionId());
+                    probe.release();
+                } catch (Exception e) {
+                }
+            }
+        }
+    }
+
+    private boolean isClientSilenced(int sessionId) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q || audioManager == null) {
+            return false;
+        }
+        for (AudioRecordingConfiguration config : audioManager.getActiveRecordingConfigurations()) {
+            if (config.getClientAudioSessionId() == sessionId) {
+                return config.isClientSilenced();
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,151 @@
+package com.privacy.silentagent;
+
+import android.os.Build;
+import android.os.FileObserver;
+import androidx.annotation.RequiresApi;
+import com.privacy.silentagent.core.CaptureTuning;
+import com.privacy.silentagent.core.PowerProfile;
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+final class GuardConfig {
+
+    static final long DEFAULT_STABILIZATION_DURATION = 10000;
+    static final long DEFAULT_RECOVERY_WAKELOCK_DURATION = 30000;
+
+    private static final long MIN_SECURITY_CHECK_INTERVAL = 10000;
+    static final long MAX_SECURITY_CHECK_INTERVAL = 30 * 60 * 1000;
+    private static final long MIN_DURATION = 1000;
+    private static final long MAX_DURATION = 60000;
+    private static final long MIN_HIGH_RATE_LIMIT = 8000;
+    private static final long MAX_HIGH_RATE_LIMIT = 48000;
+    private static final long MAX_HIGH_POWER_SLEEP = 1000;
+
+    static final GuardConfig DEFAULTS = new GuardConfig(true, null, 0,
+        DEFAULT_STABILIZATION_DURATION, DEFAULT_RECOVERY_WAKELOCK_DURATION, Collections.<String>emptySet(), 0, 0);
+
+    final boolean securityEnhanced;
+    final CaptureTuning tuning;
+    final long securityCheckInterval;
+    final long stabilizationDuration;
+    final long recoveryWakeLockDuration;
+    final Set<String> yieldAllowlist;
+    final int highRateLimit;
+    final int highPowerSleep;
+
+    private GuardConfig(boolean securityEnhanced, CaptureTuning tuning, long securityCheckInterval,
+                        long stabilizationDuration, long recoveryWakeLockDuration, Set<String> yieldAllowlist,
+                        int highRateLimit, int highPowerSleep) {
+        this.securityEnhanced = securityEnhanced;
+        this.tuning = tuning;
+        this.securityCheckInterval = securityCheckInterval;
+        this.stabilizationDuration = stabilizationDuration;
+        this.recoveryWakeLockDuration = recoveryWakeLockDuration;
+        this.yieldAllowlist = yieldAllowlist;
+        this.highRateLimit = highRateLimit;
+        this.highPowerSleep = highPowerSleep;
+    }
+
+    static GuardConfig from(GuardSettings settings) {
+        long interval = settings.getLong(GuardSettings.KEY_SECURITY_CHECK_INTERVAL, 0);
+        long rateLimit = settings.getLong(GuardSettings.KEY_HIGH_RATE_LIMIT, 0);
+        return new GuardConfig(
+            settings.getBoolean(GuardSettings.KEY_SECURITY_ENHANCED, DEFAULTS.securityEnhanced),
+            CaptureTuning.decode(settings.getString(GuardSettings.KEY_CAPTURE_TUNING, "")),
+            interval > 0 ? clamp(interval, MIN_SECURITY_CHECK_INTERVAL, MAX_SECURITY_CHECK_INTERVAL) : 0,
+            clamp(settings.getLong(GuardSettings.KEY_STABILIZATION_DURATION, DEFAULT_STABILIZATION_DURATION),
+                MIN_DURATION, MAX_DURATION),
+            clamp(settings.getLong(GuardSettings.KEY_RECOVERY_WAKELOCK_DURATION, DEFAULT_RECOVERY_WAKELOCK_DURATION),
+                MIN_DURATION, MAX_DURATION),
+            CallYieldMonitor.parseAllowlist(settings.getString(GuardSettings.KEY_YIELD_ALLOWLIST, "")),
+            rateLimit > 0 ? (int) clamp(rateLimit, MIN_HIGH_RATE_LIMIT, MAX_HIGH_RATE_LIMIT) : 0,
+            (int) clamp(settings.getLong(GuardSettings.KEY_HIGH_POWER_SLEEP, 0), 0, MAX_HIGH_POWER_SLEEP));
+    }
+
+    long securityCheckInterval(PowerProfile profile) {
+        return securityCheckInterval > 0 ? securityCheckInterval : profile.securityCheckInterval;
+    }
+
+    boolean sameTuning(GuardConfig other) {
+        return tuning == null ? other.tuning == null : tuning.equals(other.tuning);
+    }
+
+    String diff(GuardConfig previous) {
+        StringBuilder out = new StringBuilder();
+        if (previous.securityEnhanced != securityEnhanced) {
+            out.append(" security_enhanced=").append(securityEnhanced);
+        }
+        if (!sameTuning(previous)) {
+            out.append(" tuning=").append(tuning != null ? tuning.encode() : "default");
+        }
+        if (previous.securityCheckInterval != securityCheckInterval) {
+            out.append(" security_check_interval=").append(securityCheckInterval);
+        }
+        if (previous.stabilizationDuration != stabilizationDuration) {
+            out.append(" stabilization=").append(stabilizationDuration);
+        }
+        if (previous.recoveryWakeLockDuration != recoveryWakeLockDuration) {
+            out.append(" recovery_wakelock=").append(recoveryWakeLockDuration);
+        }
+        if (!previous.yieldAllowlist.equals(yieldAllowlist)) {
+            out.append(" yield_allowlist=").append(yieldAllowlist.size());
+        }
+        if (previous.highRateLimit != highRateLimit) {
+            out.append(" high_rate_limit=").append(highRateLimit);
+        }
+        if (previous.highPowerSleep != highPowerSleep) {
+            out.append(" high_power_sleep=").append(highPowerSleep);
+        }
+        return out.toString().trim();
+    }
+
+    void export(Map<String, String> out) {
+        out.put("config.security_enhanced", String.valueOf(securityEnhanced));
+        out.put("config.tuning", tuning != null ? tuning.encode() : "");
+        out.put("config.security_check_interval_ms", String.valueOf(securityCheckInterval));
+        out.put("config.stabilization_ms", String.valueOf(stabilizationDuration));
+        out.put("config.recovery_wakelock_ms", String.valueOf(recoveryWakeLockDuration));
+        out.put("config.yield_allowlist", String.valueOf(yieldAllowlist.size()));
+        out.put("config.high_rate_limit_hz", String.valueOf(highRateLimit));
+        out.put("config.high_power_sleep_ms", String.valueOf(highPowerSleep));
+    }
+
+    static FileObserver watch(File directory, Runnable onChange) {
+        FileObserver observer = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+            ? new SettingsObserver(directory, onChange) : new SettingsObserver(directory.getPath(), onChange);
+        observer.startWatching();
+        return observer;
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static final class SettingsObserver extends FileObserver {
+
+        private static final int MASK = FileObserver.CLOSE_WRITE | FileObserver.MOVED_TO;
+
+        private final Runnable onChange;
+
+        @RequiresApi(Build.VERSION_CODES.Q)
+        SettingsObserver(File directory, Runnable onChange) {
+            super(directory, MASK);
+            this.onChange = onChange;
+        }
+
+        @SuppressWarnings("deprecation")
+        SettingsObserver(String path, Runnable onChange) {
+            super(path, MASK);
+            this.onChange = onChange;
+        }
+
+        @Override
+        public void onEvent(int event, String path) {
+            if (GuardSettings.FILE_NAME.equals(path)) {
+                onChange.run();
+            }
+        }
+    }
+}
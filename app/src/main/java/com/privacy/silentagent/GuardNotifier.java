@@ -0,0 +1,162 @@
+package com.privacy.silentagent;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+final class GuardNotifier {
+
+    static final long MIN_UPDATE_INTERVAL = 5000;
+
+    private final Context context;
+    private final NotificationManager notificationManager;
+    private final NotificationCompat.Builder builder;
+    private final int notificationId;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private String title;
+    private String text;
+    private long heldSince;
+    private String postedTitle;
+    private String postedText;
+    private long postedHeldSince;
+    private long lastPostedAt = -MIN_UPDATE_INTERVAL;
+    private boolean scheduled = false;
+    private boolean screenOn = true;
+    private int posted = 0;
+    private int coalesced = 0;
+    private int suppressed = 0;
+
+    private final Runnable postRunnable = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (GuardNotifier.this) {
+                scheduled = false;
+                post();
+            }
+        }
+    };
+
+    private final BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            synchronized (GuardNotifier.this) {
+                screenOn = Intent.ACTION_SCREEN_ON.equals(intent.getAction());
+                if (screenOn) {
+                    schedule();
+                } else {
+                    handler.removeCallbacks(postRunnable);
+                    scheduled = false;
+                }
+            }
+        }
+    };
+
+    GuardNotifier(Context context, NotificationManager notificationManager, NotificationCompat.Builder builder,
+            int notificationId) {
+        this.context = context.getApplicationContext();
+        this.notificationManager = notificationManager;
+        this.builder = builder;
+        this.notificationId = notificationId;
+    }
+
+    synchronized void start() {
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        screenOn = powerManager == null || powerManager.isInteractive();
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        ContextCompat.registerReceiver(context, screenReceiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+    }
+
+    synchronized void stop() {
+        handler.removeCallbacks(postRunnable);
+        scheduled = false;
+        try {
+            context.unregisterReceiver(screenReceiver);
+        } catch (IllegalArgumentException e) {
+            android.util.Log.w("SilentAgent_Notify", "Screen receiver was not registered");
+        }
+    }
+
+    synchronized Notification build(String title, String text, long heldSince) {
+        this.title = title;
+        this.text = text;
+        this.heldSince = heldSince;
+        apply();
+        lastPostedAt = SystemClock.elapsedRealtime();
+        return builder.build();
+    }
+
+    synchronized void update(String title, String text, long heldSince) {
+        this.title = title;
+        this.text = text;
+        this.heldSince = heldSince;
+        if (!screenOn) {
+            suppressed++;
+            return;
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled) {
+            coalesced++;
+            return;
+        }
+        if (!isChanged()) {
+            return;
+        }
+        long delay = lastPostedAt + MIN_UPDATE_INTERVAL - SystemClock.elapsedRealtime();
+        scheduled = true;
+        handler.postDelayed(postRunnable, Math.max(0, delay));
+    }
+
+    private void post() {
+        if (!screenOn || !isChanged()) {
+            return;
+        }
+        apply();
+        notificationManager.notify(notificationId, builder.build());
+        lastPostedAt = SystemClock.elapsedRealtime();
+        posted++;
+    }
+
+    private boolean isChanged() {
+        return heldSince != postedHeldSince || !equal(title, postedTitle) || !equal(text, postedText);
+    }
+
+    private void apply() {
+        builder.setContentTitle(title)
+               .setContentText(text)
+               .setOnlyAlertOnce(true);
+        if (heldSince > 0) {
+            builder.setWhen(heldSince).setShowWhen(true).setUsesChronometer(true);
+        } else {
+            builder.setShowWhen(false).setUsesChronometer(false);
+        }
+        postedTitle = title;
+        postedText = text;
+        postedHeldSince = heldSince;
+    }
+
+    synchronized void export(java.util.Map<String, String> out) {
+        out.put("notification.screen_on", String.valueOf(screenOn));
+        out.put("notification.posted", String.valueOf(posted));
+        out.put("notification.coalesced", String.valueOf(coalesced));
+        out.put("notification.suppressed", String.valueOf(suppressed));
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
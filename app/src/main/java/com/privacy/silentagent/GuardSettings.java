@@ -0,0 +1,190 @@
+package com.privacy.silentagent;
+
+import android.content.Context;
+import android.os.Build;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+final class GuardSettings {
+
+    static final String KEY_PROTECTION_ENABLED = "protection_enabled";
+    static final String KEY_SECURITY_ENHANCED = "security_enhanced";
+    static final String KEY_YIELD_ALLOWLIST = "yield_allowlist";
+    static final String KEY_SCHEDULE = "schedule";
+    static final String KEY_SCHEDULE_ACTIVE = "schedule_active";
+    static final String KEY_SCHEDULE_NEXT = "schedule_next";
+    static final String KEY_SCHEDULE_DISMISSED_UNTIL = "schedule_dismissed_until";
+    static final String KEY_WATCHDOG_EXIT_CURSOR = "watchdog_exit_cursor";
+    static final String KEY_CAPTURE_TUNING = "capture_tuning";
+    static final String KEY_CALIBRATION_REPORT = "calibration_report";
+    static final String KEY_SECURITY_CHECK_INTERVAL = "security_check_interval_ms";
+    static final String KEY_STABILIZATION_DURATION = "stabilization_duration_ms";
+    static final String KEY_RECOVERY_WAKELOCK_DURATION = "recovery_wakelock_duration_ms";
+    static final String KEY_HIGH_RATE_LIMIT = "high_rate_limit_hz";
+    static final String KEY_HIGH_POWER_SLEEP = "high_power_sleep_ms";
+
+    static final String FILE_NAME = "guard_settings.properties";
+
+    private static final String LOCK_FILE_NAME = "guard_settings.lock";
+    private static final Object PROCESS_LOCK = new Object();
+
+    private final File file;
+    private final Properties properties = new Properties();
+    private final Map<String, String> changes = new HashMap<>();
+
+    private GuardSettings(File file) {
+        this.file = file;
+    }
+
+    static File directory(Context context) {
+        Context storageContext = context;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            storageContext = context.createDeviceProtectedStorageContext();
+        }
+        return storageContext.getNoBackupFilesDir();
+    }
+
+    static GuardSettings load(Context context) {
+        return load(directory(context));
+    }
+
+    static GuardSettings load(File directory) {
+        GuardSettings settings = new GuardSettings(new File(directory, FILE_NAME));
+        try {
+            read(settings.file, settings.properties);
+        } catch (IOException e) {
+            android.util.Log.e("SilentAgent_Settings", "Settings load failed", e);
+        }
+        return settings;
+    }
+
+    boolean getBoolean(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    long getLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    GuardSettings putLong(String key, long value) {
+        return put(key, Long.toString(value));
+    }
+
+    String getString(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+
+    GuardSettings putString(String key, String value) {
+        return put(key, value);
+    }
+
+    GuardSettings putBoolean(String key, boolean value) {
+        return put(key, Boolean.toString(value));
+    }
+
+    private GuardSettings put(String key, String value) {
+        properties.setProperty(key, value);
+        changes.put(key, value);
+        return this;
+    }
+
+    boolean isProtectionActive(long now) {
+        if (getBoolean(KEY_PROTECTION_ENABLED, false)) {
+            return true;
+        }
+        return getBoolean(KEY_SCHEDULE_ACTIVE, false) && now >= getLong(KEY_SCHEDULE_DISMISSED_UNTIL, 0);
+    }
+
+    GuardSettings setProtectionEnabled(boolean enabled) {
+        putBoolean(KEY_PROTECTION_ENABLED, enabled);
+        if (enabled) {
+            return putLong(KEY_SCHEDULE_DISMISSED_UNTIL, 0);
+        }
+        if (getBoolean(KEY_SCHEDULE_ACTIVE, false)) {
+            putLong(KEY_SCHEDULE_DISMISSED_UNTIL, getLong(KEY_SCHEDULE_NEXT, Long.MAX_VALUE));
+        }
+        return this;
+    }
+
+    boolean save() {
+        synchronized (PROCESS_LOCK) {
+            RandomAccessFile lockFile = null;
+            try {
+                lockFile = new RandomAccessFile(new File(file.getParentFile(), LOCK_FILE_NAME), "rw");
+                FileLock lock = lockFile.getChannel().lock();
+                try {
+                    Properties latest = new Properties();
+                    read(file, latest);
+                    latest.putAll(changes);
+                    if (!write(latest)) {
+                        return false;
+                    }
+                    properties.clear();
+                    properties.putAll(latest);
+                    changes.clear();
+                    return true;
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                android.util.Log.e("SilentAgent_Settings", "Settings save failed", e);
+                return false;
+            } finally {
+                closeQuietly(lockFile);
+            }
+        }
+    }
+
+    private static void read(File source, Properties into) throws IOException {
+        if (!source.exists()) {
+            return;
+        }
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(source);
+            into.load(in);
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private boolean write(Properties values) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            values.store(out, null);
+            out.getFD().sync();
+            out.close();
+            out = null;
+            return temp.renameTo(file);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
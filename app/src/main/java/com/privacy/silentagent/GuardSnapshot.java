@@ -0,0 +1,231 @@
+package com.privacy.silentagent;
+
+import androidx.annotation.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class GuardSnapshot {
+
+    static final int SIZE = 64;
+
+    private static final int MAGIC = 0x53414753;
+    private static final int VERSION = 1;
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_HEAD = 8;
+    private static final int OFFSET_SAVED_AT = 16;
+    private static final int OFFSET_SECURITY_CHECKED_AT = 24;
+    private static final int OFFSET_RATE = 32;
+    private static final int OFFSET_FLAGS = 36;
+    private static final int OFFSET_CONSECUTIVE_ERRORS = 40;
+    private static final int OFFSET_TOTAL_ERRORS = 44;
+    private static final int OFFSET_SECURITY_VIOLATIONS = 48;
+    private static final int OFFSET_BOOT_TO_HELD = 52;
+    private static final int OFFSET_TAIL = 56;
+
+    static final int FLAG_HIGH_POWER = 1;
+    static final int FLAG_SECURITY_ENHANCED = 1 << 1;
+    static final int FLAG_MIC_HELD = 1 << 2;
+    static final int FLAG_RUNNING = 1 << 3;
+
+    private static final int READ_ATTEMPTS = 4;
+    private static final AtomicInteger FENCE = new AtomicInteger();
+
+    private final ByteBuffer buffer;
+    private final boolean restored;
+    private long sequence;
+
+    private GuardSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        long tail = buffer.getLong(OFFSET_TAIL);
+        fence();
+        long head = buffer.getLong(OFFSET_HEAD);
+        this.restored = buffer.getInt(OFFSET_MAGIC) == MAGIC
+            && buffer.getInt(OFFSET_VERSION) == VERSION
+            && head == tail
+            && (head & 1) == 0
+            && head > 0;
+        this.sequence = restored ? head : 0;
+        if (!restored) {
+            buffer.putInt(OFFSET_MAGIC, MAGIC);
+            buffer.putInt(OFFSET_VERSION, VERSION);
+            for (int offset = OFFSET_HEAD; offset < SIZE; offset += 8) {
+                buffer.putLong(offset, 0);
+            }
+        }
+    }
+
+    static GuardSnapshot open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            return new GuardSnapshot(channel.map(FileChannel.MapMode.READ_WRITE, 0, SIZE));
+        } finally {
+            raf.close();
+        }
+    }
+
+    static boolean readFlag(File file, int flag) throws IOException {
+        long[] fields = readStable(file);
+        return fields != null && (fields[0] & flag) != 0;
+    }
+
+    static boolean readHeld(File file, long now, long freshness) throws IOException {
+        long[] fields = readStable(file);
+        if (fields == null) {
+            return false;
+        }
+        long age = now - fields[1];
+        int held = FLAG_RUNNING | FLAG_MIC_HELD;
+        return age >= 0 && age <= freshness && (fields[0] & held) == held;
+    }
+
+    static long readSavedAt(File file) throws IOException {
+        long[] fields = readStable(file);
+        return fields != null ? fields[1] : 0;
+    }
+
+    private static long[] readStable(File file) throws IOException {
+        if (!file.exists() || file.length() < SIZE) {
+            return null;
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return readStable(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, SIZE));
+        } finally {
+            raf.close();
+        }
+    }
+
+    static long[] readStable(ByteBuffer view) {
+        if (view.getInt(OFFSET_MAGIC) != MAGIC) {
+            return null;
+        }
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            long tail = view.getLong(OFFSET_TAIL);
+            fence();
+            int flags = view.getInt(OFFSET_FLAGS);
+            long savedAt = view.getLong(OFFSET_SAVED_AT);
+            fence();
+            long head = view.getLong(OFFSET_HEAD);
+            if (head == tail && (head & 1) == 0) {
+                return new long[] {flags, savedAt};
+            }
+            Thread.yield();
+        }
+        return null;
+    }
+
+    private static void fence() {
+        FENCE.incrementAndGet();
+    }
+
+    static GuardSnapshot inMemory() {
+        return new GuardSnapshot(ByteBuffer.allocate(SIZE));
+    }
+
+    boolean isRestored() {
+        return restored;
+    }
+
+    synchronized long getSavedAt() {
+        return buffer.getLong(OFFSET_SAVED_AT);
+    }
+
+    synchronized long getSecurityCheckedAt() {
+        return buffer.getLong(OFFSET_SECURITY_CHECKED_AT);
+    }
+
+    synchronized int getRate() {
+        return buffer.getInt(OFFSET_RATE);
+    }
+
+    synchronized boolean hasFlag(int flag) {
+        return (buffer.getInt(OFFSET_FLAGS) & flag) != 0;
+    }
+
+    synchronized int getConsecutiveErrors() {
+        return buffer.getInt(OFFSET_CONSECUTIVE_ERRORS);
+    }
+
+    synchronized int getTotalErrors() {
+        return buffer.getInt(OFFSET_TOTAL_ERRORS);
+    }
+
+    synchronized int getSecurityViolations() {
+        return buffer.getInt(OFFSET_SECURITY_VIOLATIONS);
+    }
+
+    synchronized int getBootToHeld() {
+        return buffer.getInt(OFFSET_BOOT_TO_HELD);
+    }
+
+    synchronized void recordBootToHeld(long bootToHeldMs, long now) {
+        begin();
+        buffer.putInt(OFFSET_BOOT_TO_HELD, (int) Math.min(Integer.MAX_VALUE, bootToHeldMs));
+        commit(now);
+    }
+
+    synchronized void recordRate(int rate, boolean highPower, long now) {
+        begin();
+        buffer.putInt(OFFSET_RATE, rate);
+        putFlag(FLAG_HIGH_POWER, highPower);
+        commit(now);
+    }
+
+    synchronized void recordFlag(int flag, boolean value, long now) {
+        if (hasFlag(flag) == value) {
+            return;
+        }
+        begin();
+        putFlag(flag, value);
+        commit(now);
+    }
+
+    synchronized void recordErrors(int consecutiveErrors, int totalErrors, long now) {
+        begin();
+        buffer.putInt(OFFSET_CONSECUTIVE_ERRORS, consecutiveErrors);
+        buffer.putInt(OFFSET_TOTAL_ERRORS, totalErrors);
+        commit(now);
+    }
+
+    synchronized void recordSecurityCheck(int securityViolations, long now) {
+        begin();
+        buffer.putInt(OFFSET_SECURITY_VIOLATIONS, securityViolations);
+        buffer.putLong(OFFSET_SECURITY_CHECKED_AT, now);
+        commit(now);
+    }
+
+    synchronized void recordHeartbeat(long now) {
+        begin();
+        commit(now);
+    }
+
+    private void putFlag(int flag, boolean value) {
+        int flags = buffer.getInt(OFFSET_FLAGS);
+        buffer.putInt(OFFSET_FLAGS, value ? (flags | flag) : (flags & ~flag));
+    }
+
+    private void begin() {
+        buffer.putLong(OFFSET_HEAD, sequence + 1);
+        fence();
+    }
+
+    private void commit(long now) {
+        buffer.putLong(OFFSET_SAVED_AT, now);
+        sequence += 2;
+        fence();
+        buffer.putLong(OFFSET_TAIL, sequence);
+        buffer.putLong(OFFSET_HEAD, sequence);
+    }
+
+    @VisibleForTesting
+    ByteBuffer view() {
+        return buffer.duplicate();
+    }
+}
@@ -0,0 +1,57 @@
+package com.privacy.silentagent;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import java.util.Map;
+
+public class GuardStateProvider extends ContentProvider {
+
+    static final String PATH_STATE = "state";
+    static final String COLUMN_KEY = "key";
+    static final String COLUMN_VALUE = "value";
+
+    private static final String[] COLUMNS = {COLUMN_KEY, COLUMN_VALUE};
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        if (!PATH_STATE.equals(uri.getLastPathSegment())) {
+            throw new IllegalArgumentException("Unknown uri: " + uri);
+        }
+        String prefix = selectionArgs != null && selectionArgs.length > 0 ? selectionArgs[0] : null;
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        for (Map.Entry<String, String> entry : GuardStateReport.collect(getContext()).entrySet()) {
+            if (prefix == null || entry.getKey().startsWith(prefix)) {
+                cursor.addRow(new Object[] {entry.getKey(), GuardStateReport.sanitize(entry.getValue())});
+            }
+        }
+        return cursor;
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        return "vnd.android.cursor.dir/vnd." + getContext().getPackageName() + "." + PATH_STATE;
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        throw new UnsupportedOperationException("Read-only provider");
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException("Read-only provider");
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException("Read-only provider");
+    }
+}
@@ -0,0 +1,77 @@
+package com.privacy.silentagent;
+
+import android.content.Context;
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class GuardStateReport {
+
+    interface Source {
+        void collect(Map<String, String> out);
+    }
+
+    static final int SCHEMA_VERSION = 1;
+
+    private static volatile Source source;
+
+    private GuardStateReport() {
+    }
+
+    static void register(Source live) {
+        source = live;
+    }
+
+    static void unregister(Source live) {
+        if (source == live) {
+            source = null;
+        }
+    }
+
+    static Map<String, String> collect(Context context) {
+        Map<String, String> out = new LinkedHashMap<>();
+        out.put("schema", String.valueOf(SCHEMA_VERSION));
+        out.put("collected_at", String.valueOf(System.currentTimeMillis()));
+        out.put("package", context.getPackageName());
+
+        Source live = source;
+        if (live != null) {
+            out.put("service.running", "true");
+            live.collect(out);
+            return out;
+        }
+
+        out.put("service.running", "false");
+        try {
+            GuardSettings settings = GuardSettings.load(context);
+            out.put("settings.protection_enabled",
+                String.valueOf(settings.getBoolean(GuardSettings.KEY_PROTECTION_ENABLED, false)));
+            out.put("settings.protection_active",
+                String.valueOf(settings.isProtectionActive(System.currentTimeMillis())));
+            out.put("settings.security_enhanced",
+                String.valueOf(settings.getBoolean(GuardSettings.KEY_SECURITY_ENHANCED, true)));
+            out.put("snapshot.mic_held", String.valueOf(GuardSnapshot.readFlag(
+                new File(GuardSettings.directory(context), MicGuardService.SNAPSHOT_FILE), GuardSnapshot.FLAG_MIC_HELD)));
+        } catch (Exception e) {
+            out.put("error", e.getClass().getSimpleName());
+        }
+        return out;
+    }
+
+    static void print(Map<String, String> state, PrintWriter writer) {
+        for (Map.Entry<String, String> entry : state.entrySet()) {
+            writer.print(entry.getKey());
+            writer.print('=');
+            writer.println(sanitize(entry.getValue()));
+        }
+        writer.flush();
+    }
+
+    static String sanitize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace('\n', ' ').replace('\r', ' ');
+    }
+}
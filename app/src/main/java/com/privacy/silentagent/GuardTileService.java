@@ -0,0 +1,194 @@
+package com.privacy.silentagent;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.service.quicksettings.Tile;
+import android.service.quicksettings.TileService;
+import androidx.annotation.RequiresApi;
+import androidx.core.content.ContextCompat;
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@RequiresApi(api = Build.VERSION_CODES.N)
+public class GuardTileService extends TileService {
+
+    private static final String TAG = "SilentAgent_Tile";
+    private static final long HELD_FRESHNESS = 2 * GuardConfig.MAX_SECURITY_CHECK_INTERVAL;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private ExecutorService executor;
+    private BroadcastReceiver stateReceiver;
+    private volatile boolean protectionActive = false;
+
+    static void requestUpdate(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+        try {
+            TileService.requestListeningState(context, new ComponentName(context, GuardTileService.class));
+        } catch (Exception e) {
+            android.util.Log.w(TAG, "Tile update request failed", e);
+        }
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @Override
+    public void onDestroy() {
+        executor.shutdown();
+        super.onDestroy();
+    }
+
+    @Override
+    public void onStartListening() {
+        super.onStartListening();
+        try {
+            if (stateReceiver == null) {
+                stateReceiver = new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context context, Intent intent) {
+                        if (intent.hasExtra(MicGuardService.EXTRA_MIC_HELD)) {
+                            render(protectionActive, intent.getBooleanExtra(MicGuardService.EXTRA_MIC_HELD, false));
+                        }
+                    }
+                };
+                ContextCompat.registerReceiver(this, stateReceiver,
+                    new IntentFilter(MicGuardService.ACTION_STATE_CHANGED), ContextCompat.RECEIVER_NOT_EXPORTED);
+            }
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final boolean active = GuardSettings.load(GuardTileService.this)
+                            .isProtectionActive(System.currentTimeMillis());
+                        final boolean held = active && isMicHeld();
+                        protectionActive = active;
+                        mainHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                render(active, held);
+                            }
+                        });
+                    } catch (Exception e) {
+                        android.util.Log.e(TAG, "Tile state load failed", e);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Tile listening failed", e);
+        }
+    }
+
+    @Override
+    public void onStopListening() {
+        try {
+            if (stateReceiver != null) {
+                unregisterReceiver(stateReceiver);
+                stateReceiver = null;
+            }
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Tile receiver cleanup failed", e);
+        }
+        super.onStopListening();
+    }
+
+    @Override
+    public void onClick() {
+        super.onClick();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    toggle();
+                }
+            });
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Tile toggle failed", e);
+        }
+    }
+
+    private void toggle() {
+        try {
+            GuardSettings settings = GuardSettings.load(this);
+            final boolean enable = !settings.isProtectionActive(System.currentTimeMillis());
+            boolean securityEnhanced = settings.getBoolean(GuardSettings.KEY_SECURITY_ENHANCED, true);
+            settings.setProtectionEnabled(enable).save();
+            protectionActive = enable;
+
+            Intent serviceIntent = new Intent(this, MicGuardService.class);
+            if (enable) {
+                serviceIntent.putExtra("security_enhanced", securityEnhanced);
+                serviceIntent.putExtra(MicGuardService.EXTRA_REQUESTED_AT, SystemClock.elapsedRealtime());
+                serviceIntent.putExtra(MicGuardService.EXTRA_TOGGLE_SOURCE, MicGuardService.TOGGLE_SOURCE_TILE);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                    startForegroundService(serviceIntent);
+                } else {
+                    startService(serviceIntent);
+                }
+            } else {
+                stopService(serviceIntent);
+            }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (enable) {
+                        renderPending();
+                    } else {
+                        render(false, false);
+                    }
+                }
+            });
+            android.util.Log.d(TAG, "Protection " + (enable ? "start" : "stop") + " requested from tile");
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Tile toggle failed", e);
+        }
+    }
+
+    private boolean isMicHeld() {
+        try {
+            File snapshotFile = new File(GuardSettings.directory(this), MicGuardService.SNAPSHOT_FILE);
+            return GuardSnapshot.readHeld(snapshotFile, System.currentTimeMillis(), HELD_FRESHNESS);
+        } catch (Exception e) {
+            android.util.Log.w(TAG, "Snapshot read failed", e);
+            return false;
+        }
+    }
+
+    private void renderPending() {
+        Tile tile = getQsTile();
+        if (tile == null) {
+            return;
+        }
+        tile.setState(Tile.STATE_ACTIVE);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            tile.setSubtitle(getString(R.string.tile_starting));
+        }
+        tile.updateTile();
+    }
+
+    private void render(boolean enabled, boolean held) {
+        Tile tile = getQsTile();
+        if (tile == null) {
+            return;
+        }
+        tile.setState(enabled ? Tile.STATE_ACTIVE : Tile.STATE_INACTIVE);
+        tile.setLabel(getString(R.string.tile_label));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            tile.setSubtitle(getString(!enabled ? R.string.service_inactive
+                : held ? R.string.service_active : R.string.notification_state_reacquiring));
+        }
+        tile.updateTile();
+    }
+}
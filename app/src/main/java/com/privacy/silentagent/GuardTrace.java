@@ -0,0 +1,75 @@
+package com.privacy.silentagent;
+
+import android.os.Build;
+import android.os.Trace;
+
+final class GuardTrace {
+
+    static final String PROPERTY = "debug.silentagent.trace";
+
+    static final int COOKIE_TOGGLE = 1;
+    static final int COOKIE_YIELD = 2;
+    static final int COOKIE_DEFERRED_SECURITY = 3;
+
+    private static volatile boolean override = false;
+
+    private GuardTrace() {
+    }
+
+    static void refresh() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return;
+        }
+        boolean value = false;
+        try {
+            Class<?> properties = Class.forName("android.os.SystemProperties");
+            value = (Boolean) properties.getMethod("getBoolean", String.class, boolean.class)
+                .invoke(null, PROPERTY, false);
+        } catch (Throwable t) {
+            value = false;
+        }
+        if (value != override) {
+            override = value;
+            android.util.Log.d("SilentAgent_Trace", "Tracing " + (value ? "enabled" : "disabled"));
+        }
+    }
+
+    static boolean isEnabled() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return Trace.isEnabled();
+        }
+        return override;
+    }
+
+    static boolean begin(String section) {
+        if (!isEnabled()) {
+            return false;
+        }
+        Trace.beginSection(section);
+        return true;
+    }
+
+    static void end(boolean began) {
+        if (began) {
+            Trace.endSection();
+        }
+    }
+
+    static void beginAsync(String name, int cookie) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled()) {
+            Trace.beginAsyncSection(name, cookie);
+        }
+    }
+
+    static void endAsync(String name, int cookie) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled()) {
+            Trace.endAsyncSection(name, cookie);
+        }
+    }
+
+    static void counter(String name, long value) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled()) {
+            Trace.setCounter(name, value);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.privacy.silentagent;
+
+import android.app.ActivityManager;
+import android.app.ApplicationExitInfo;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.PowerManager;
+import androidx.core.app.NotificationCompat;
+import java.io.File;
+import java.util.List;
+
+public class GuardWatchdog extends JobService {
+
+    static final int JOB_ID = 3001;
+    static final String EXTRA_RESTORE = "watchdog_restore";
+
+    private static final String RESTORE_CHANNEL_ID = "guard_restore_channel";
+    private static final int RESTORE_NOTIFICATION_ID = 1003;
+
+    private static final long CHECK_INTERVAL = 15 * 60 * 1000;
+    private static final long CHECK_FLEX = 5 * 60 * 1000;
+    private static final int MAX_EXIT_REASONS = 16;
+
+    static void schedule(Context context) {
+        try {
+            JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+            if (scheduler == null) {
+                return;
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && scheduler.getPendingJob(JOB_ID) != null) {
+                return;
+            }
+            JobInfo.Builder builder = new JobInfo.Builder(JOB_ID, new ComponentName(context, GuardWatchdog.class))
+                .setPersisted(true);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                builder.setPeriodic(CHECK_INTERVAL, CHECK_FLEX);
+            } else {
+                builder.setPeriodic(CHECK_INTERVAL);
+            }
+            if (scheduler.schedule(builder.build()) != JobScheduler.RESULT_SUCCESS) {
+                android.util.Log.w("SilentAgent_Watchdog", "Watchdog scheduling rejected");
+            }
+        } catch (Exception e) {
+            android.util.Log.e("SilentAgent_Watchdog", "Watchdog scheduling failed", e);
+        }
+    }
+
+    static void cancel(Context context) {
+        try {
+            JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+            if (scheduler != null) {
+                scheduler.cancel(JOB_ID);
+            }
+        } catch (Exception e) {
+            android.util.Log.e("SilentAgent_Watchdog", "Watchdog cancel failed", e);
+        }
+    }
+
+    static void cancelRestoreNotification(Context context) {
+        try {
+            NotificationManager notificationManager =
+                (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+            if (notificationManager != null) {
+                notificationManager.cancel(RESTORE_NOTIFICATION_ID);
+            }
+        } catch (Exception e) {
+            android.util.Log.e("SilentAgent_Watchdog", "Restore notification cancel failed", e);
+        }
+    }
+
+    private Thread worker;
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        worker = new Thread(() -> {
+            try {
+                check();
+            } catch (Exception e) {
+                android.util.Log.e("SilentAgent_Watchdog", "Watchdog check failed", e);
+            } finally {
+                jobFinished(params, false);
+            }
+        }, "SilentAgent-Watchdog");
+        worker.start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        Thread active = worker;
+        if (active != null) {
+            active.interrupt();
+        }
+        return false;
+    }
+
+    private void check() throws Exception {
+        GuardSettings settings = GuardSettings.load(this);
+        File directory = GuardSettings.directory(this);
+        long now = System.currentTimeMillis();
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            collectExitReasons(settings, directory, now);
+        }
+
+        if (!settings.isProtectionActive(now)) {
+            android.util.Log.d("SilentAgent_Watchdog", "Protection disabled, cancelling watchdog");
+            cancel(this);
+            return;
+        }
+        if (isGuardRunning(this)) {
+            return;
+        }
+
+        File snapshotFile = new File(directory, MicGuardService.SNAPSHOT_FILE);
+        boolean killed = GuardSnapshot.readFlag(snapshotFile, GuardSnapshot.FLAG_RUNNING);
+        WatchdogLog.Entry death = new WatchdogLog.Entry(now, killed ? WatchdogLog.KIND_KILLED : WatchdogLog.KIND_STOPPED,
+            GuardSnapshot.readSavedAt(snapshotFile), "detected by watchdog");
+        WatchdogLog.append(directory, death);
+        android.util.Log.w("SilentAgent_Watchdog", "Guard not running (" + death.kind + ", last seen "
+            + death.delay + "ms ago), restarting");
+
+        String blocked = restartBlockedReason();
+        if (blocked == null) {
+            try {
+                Intent serviceIntent = new Intent(this, MicGuardService.class);
+                serviceIntent.putExtra("security_enhanced", settings.getBoolean(GuardSettings.KEY_SECURITY_ENHANCED, true));
+                serviceIntent.putExtra(MicGuardService.EXTRA_WATCHDOG_RESTART, true);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                    startForegroundService(serviceIntent);
+                } else {
+                    startService(serviceIntent);
+                }
+                return;
+            } catch (Exception e) {
+                android.util.Log.e("SilentAgent_Watchdog", "Guard restart failed", e);
+                blocked = e.getClass().getSimpleName();
+            }
+        }
+        WatchdogLog.append(directory, new WatchdogLog.Entry(now, WatchdogLog.KIND_RESTART_BLOCKED, 0,
+            blocked + ", restore notification posted"));
+        postRestoreNotification();
+    }
+
+    private String restartBlockedReason() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            return "background microphone service start";
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+            if (powerManager == null || !powerManager.isIgnoringBatteryOptimizations(getPackageName())) {
+                return "background foreground-service start";
+            }
+        }
+        return null;
+    }
+
+    private void postRestoreNotification() {
+        NotificationManager notificationManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        if (notificationManager == null) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                && notificationManager.getNotificationChannel(RESTORE_CHANNEL_ID) == null) {
+            NotificationChannel channel = new NotificationChannel(RESTORE_CHANNEL_ID,
+                getString(R.string.restore_channel_name), NotificationManager.IMPORTANCE_DEFAULT);
+            channel.setShowBadge(true);
+            notificationManager.createNotificationChannel(channel);
+        }
+
+        Intent restoreIntent = new Intent(this, MainActivity.class);
+        restoreIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        restoreIntent.putExtra(EXTRA_RESTORE, true);
+        PendingIntent pendingIntent = PendingIntent.getActivity(this, RESTORE_NOTIFICATION_ID, restoreIntent,
+            PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, RESTORE_CHANNEL_ID)
+            .setSmallIcon(R.drawable.ic_shield)
+            .setContentTitle(getString(R.string.restore_title))
+            .setContentText(getString(R.string.restore_text))
+            .setStyle(new NotificationCompat.BigTextStyle().bigText(getString(R.string.restore_text)))
+            .setContentIntent(pendingIntent)
+            .setAutoCancel(true)
+            .setOnlyAlertOnce(true)
+            .setCategory(NotificationCompat.CATEGORY_STATUS)
+            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+        notificationManager.notify(RESTORE_NOTIFICATION_ID, builder.build());
+    }
+
+    static boolean isGuardRunning(Context context) {
+        ActivityManager manager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (manager == null) {
+            return false;
+        }
+        for (ActivityManager.RunningServiceInfo service : manager.getRunningServices(Integer.MAX_VALUE)) {
+            if (MicGuardService.class.getName().equals(service.service.getClassName())) {
+                return service.started;
+            }
+        }
+        return false;
+    }
+
+    private void collectExitReasons(GuardSettings settings, File directory, long now) throws Exception {
+        ActivityManager manager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+        if (manager == null) {
+            return;
+        }
+        long cursor = settings.getLong(GuardSettings.KEY_WATCHDOG_EXIT_CURSOR, 0);
+        long newest = cursor;
+        List<ApplicationExitInfo> exits = manager.getHistoricalProcessExitReasons(getPackageName(), 0, MAX_EXIT_REASONS);
+        for (int i = exits.size() - 1; i >= 0; i--) {
+            ApplicationExitInfo exit = exits.get(i);
+            if (exit.getTimestamp() <= cursor || !ProcessFootprint.isGuardProcess(exit.getProcessName())) {
+                continue;
+            }
+            String detail = describeReason(exit.getReason()) + " status=" + exit.getStatus()
+                + " importance=" + exit.getImportance() + " pss=" + exit.getPss() + "kB"
+                + (exit.getDescription() != null ? " " + exit.getDescription() : "");
+            WatchdogLog.append(directory, new WatchdogLog.Entry(now, WatchdogLog.KIND_EXIT, exit.getTimestamp(), detail));
+            newest = Math.max(newest, exit.getTimestamp());
+        }
+        if (newest != cursor) {
+            settings.putLong(GuardSettings.KEY_WATCHDOG_EXIT_CURSOR, newest).save();
+        }
+    }
+
+    static String describeReason(int reason) {
+        switch (reason) {
+            case ApplicationExitInfo.REASON_EXIT_SELF:
+                return "EXIT_SELF";
+            case ApplicationExitInfo.REASON_SIGNALED:
+                return "SIGNALED";
+            case ApplicationExitInfo.REASON_LOW_MEMORY:
+                return "LOW_MEMORY";
+            case ApplicationExitInfo.REASON_CRASH:
+                return "CRASH";
+            case ApplicationExitInfo.REASON_CRASH_NATIVE:
+                return "CRASH_NATIVE";
+            case ApplicationExitInfo.REASON_ANR:
+                return "ANR";
+            case ApplicationExitInfo.REASON_INITIALIZATION_FAILURE:
+                return "INITIALIZATION_FAILURE";
+            case ApplicationExitInfo.REASON_PERMISSION_CHANGE:
+                return "PERMISSION_CHANGE";
+            case ApplicationExitInfo.REASON_EXCESSIVE_RESOURCE_USAGE:
+                return "EXCESSIVE_RESOURCE_USAGE";
+            case ApplicationExitInfo.REASON_USER_REQUESTED:
+                return "USER_REQUESTED";
+            case ApplicationExitInfo.REASON_USER_STOPPED:
+                return "USER_STOPPED";
+            case ApplicationExitInfo.REASON_DEPENDENCY_DIED:
+                return "DEPENDENCY_DIED";
+            case ApplicationExitInfo.REASON_OTHER:
+                return "OTHER";
+            case ApplicationExitInfo.REASON_FREEZER:
+                return "FREEZER";
+            case ApplicationExitInfo.REASON_PACKAGE_STATE_CHANGE:
+                return "PACKAGE_STATE_CHANGE";
+            case ApplicationExitInfo.REASON_PACKAGE_UPDATED:
+                return "PACKAGE_UPDATED";
+            default:
+                return "UNKNOWN(" + reason + ")";
+        }
+    }
+}
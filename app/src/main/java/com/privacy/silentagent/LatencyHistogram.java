@@ -0,0 +1,87 @@
+package com.privacy.silentagent;
+
+final class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 18;
+
+    private final String name;
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long valueMs) {
+        long value = Math.max(0, valueMs);
+        buckets[bucketFor(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    synchronized long getCount() {
+        return count;
+    }
+
+    synchronized long percentile(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * Math.min(1.0, Math.max(0.0, p)));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= Math.max(1, rank)) {
+                return i == BUCKET_COUNT - 1 ? max : Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    synchronized String summary() {
+        if (count == 0) {
+            return name + " n=0";
+        }
+        return name + " n=" + count
+            + " min=" + min
+            + " p50=" + percentile(0.50)
+            + " p90=" + percentile(0.90)
+            + " p99=" + percentile(0.99)
+            + " max=" + max
+            + " mean=" + (sum / count);
+    }
+
+    synchronized void export(String prefix, java.util.Map<String, String> out) {
+        out.put(prefix + ".count", String.valueOf(count));
+        if (count == 0) {
+            return;
+        }
+        out.put(prefix + ".min", String.valueOf(min));
+        out.put(prefix + ".p50", String.valueOf(percentile(0.50)));
+        out.put(prefix + ".p90", String.valueOf(percentile(0.90)));
+        out.put(prefix + ".p99", String.valueOf(percentile(0.99)));
+        out.put(prefix + ".max", String.valueOf(max));
+        out.put(prefix + ".mean", String.valueOf(sum / count));
+    }
+
+    synchronized long[] snapshotBuckets() {
+        return buckets.clone();
+    }
+
+    static long upperBound(int bucket) {
+        return bucket == 0 ? 1 : (1L << bucket);
+    }
+
+    private static int bucketFor(long value) {
+        if (value <= 1) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(value - 1);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+}
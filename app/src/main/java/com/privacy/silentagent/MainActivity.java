@@ -17,17 +17,25 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.Settings;
+import android.text.format.DateUtils;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.AdapterView;
+import android.widget.CheckBox;
 import android.widget.ArrayAdapter;
 import android.widget.CompoundButton;
+import android.widget.EditText;
+import android.widget.HorizontalScrollView;
 import android.widget.Spinner;
 import android.widget.Switch;
 import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.ScrollView;
 import android.widget.TextView;
+import android.widget.TimePicker;
 import android.widget.Toast;
 import android.widget.ImageButton;
 import androidx.annotation.NonNull;
@@ -35,12 +43,17 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.lifecycle.ViewModelProvider;
+import com.privacy.silentagent.core.CaptureTuning;
+import java.text.DateFormatSymbols;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -55,9 +68,12 @@ public class MainActivity extends AppCompatActivity {
     private static final String PREF_LAST_SECURITY_CHECK = "last_security_check";
     private static final String PREF_THEME = "theme";
     private static final String GITHUB_URL = "https://github.com/tc4dy";
+    private static final long START_CONFIRMATION_TIMEOUT = 3000;
+    private static final long ERROR_WINDOW = 30000;
     
     private com.google.android.material.switchmaterial.SwitchMaterial serviceSwitch;
     private TextView statusText;
+    private TextView scheduleText;
     private TextView bottomStatusText;
     private View statusIndicator;
     private Spinner languageSpinner;
@@ -66,12 +82,35 @@ public class MainActivity extends AppCompatActivity {
     private SharedPreferences preferences;
     private Handler statusCheckHandler;
     private Runnable statusCheckRunnable;
-    private ScheduledExecutorService securityExecutor;
+    private SecurityMonitorViewModel securityMonitor;
     private boolean isServiceRunning = false;
     private boolean isPermissionDenied = false;
     private boolean isSecurityEnhanced = true;
     private ServiceStateReceiver serviceStateReceiver;
     private long lastSecurityCheck = 0;
+    private Runnable startConfirmationFallback;
+    private final ExecutorService settingsExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "SilentAgent-UiSettings");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final MemoryManager memoryManager = new MemoryManager(new MemoryManager.Listener() {
+        @Override
+        public void onMemoryEvent(String message) {
+            logSecurityEvent(message);
+        }
+    });
+    private final ErrorAggregator errorAggregator = new ErrorAggregator(ErrorAggregator.DEFAULT_CAPACITY, ERROR_WINDOW,
+        new ErrorAggregator.Reporter() {
+            @Override
+            public void onRepeated(String site, String type, int repeats, long windowMs) {
+                android.util.Log.w("SilentAgent_Security", site + " (" + type + ") repeated " + repeats
+                    + " times within " + windowMs + "ms");
+            }
+        });
 
     private static final String[] LANGUAGE_CODES = {
         "en", "tr", "de", "fr", "es", "ru", "zh", "ar"
@@ -84,52 +123,100 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        GuardTrace.refresh();
+        boolean traced = GuardTrace.begin("MainActivity.onCreate");
         try {
+            boolean tracedStep = GuardTrace.begin("MainActivity.securityCheck");
             performSecurityCheck();
+            GuardTrace.end(tracedStep);
+            
+            tracedStep = GuardTrace.begin("MainActivity.loadPreferences");
             preferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
             loadLanguagePreference();
             loadThemePreference();
             loadSecurityLevel();
+            GuardTrace.end(tracedStep);
 
             super.onCreate(savedInstanceState);
+            tracedStep = GuardTrace.begin("MainActivity.inflate");
             setContentView(R.layout.activity_main);
+            GuardTrace.end(tracedStep);
             
             if (getSupportActionBar() != null) {
                 getSupportActionBar().setTitle(R.string.app_name);
                 getSupportActionBar().setElevation(0);
             }
             
+            tracedStep = GuardTrace.begin("MainActivity.setupViews");
             initializeViews();
             setupLanguageSpinner();
             setupServiceSwitch();
             setupInfoButton();
             setupStatusChecker();
             setupSecurityMonitoring();
+            registerMemoryShedders();
+            GuardTrace.end(tracedStep);
             
             if (isFirstRun()) {
                 showInitialWarningDialog();
             } else {
                 checkPermissionsAndStartService();
+                handleRestoreIntent(getIntent());
             }
             
-            registerServiceStateReceiver();
             preventScreenCapture();
             
         } catch (Exception e) {
             handleCriticalError("MainActivity onCreate failed", e);
+        } finally {
+            GuardTrace.end(traced);
         }
     }
 
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        setIntent(intent);
+        handleRestoreIntent(intent);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        try {
+            registerServiceStateReceiver();
+            startSecurityMonitoring();
+        } catch (Exception e) {
+            handleSecurityError("Start security monitoring failed", e);
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        try {
+            stopSecurityMonitoring();
+            unregisterServiceStateReceiver();
+            errorAggregator.drainAll();
+        } catch (Exception e) {
+            handleSecurityError("Stop security monitoring failed", e);
+        }
+        super.onStop();
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
+        boolean traced = GuardTrace.begin("MainActivity.onResume");
         try {
             updateServiceStatus();
+            updateScheduleStatus();
             startStatusChecking();
             performSecurityCheck();
             validateIntegrity();
         } catch (Exception e) {
             handleSecurityError("Resume security check failed", e);
+        } finally {
+            GuardTrace.end(traced);
         }
     }
 
@@ -149,22 +236,12 @@ public class MainActivity extends AppCompatActivity {
         super.onDestroy();
         try {
             stopStatusChecking();
+            cancelStartConfirmationFallback();
             unregisterServiceStateReceiver();
-            cleanupSecurityResources();
             if (statusCheckHandler != null && statusCheckRunnable != null) {
                 statusCheckHandler.removeCallbacks(statusCheckRunnable);
             }
-            if (securityExecutor != null && !securityExecutor.isShutdown()) {
-                securityExecutor.shutdown();
-                try {
-                    if (!securityExecutor.awaitTermination(2, TimeUnit.SECONDS)) {
-                        securityExecutor.shutdownNow();
-                    }
-                } catch (InterruptedException e) {
-                    securityExecutor.shutdownNow();
-                    Thread.currentThread().interrupt();
-                }
-            }
+            settingsExecutor.shutdown();
         } catch (Exception e) {
             handleCriticalError("MainActivity cleanup failed", e);
         }
@@ -188,6 +265,26 @@ public class MainActivity extends AppCompatActivity {
                 showInfoDialog();
                 return true;
             }
+            if (item.getItemId() == R.id.action_yield_allowlist) {
+                showYieldAllowlistDialog();
+                return true;
+            }
+            if (item.getItemId() == R.id.action_schedule) {
+                showScheduleDialog();
+                return true;
+            }
+            if (item.getItemId() == R.id.action_metrics) {
+                showMetricsDialog();
+                return true;
+            }
+            if (item.getItemId() == R.id.action_access_history) {
+                showAccessHistoryDialog();
+                return true;
+            }
+            if (item.getItemId() == R.id.action_calibrate) {
+                showCalibrationDialog();
+                return true;
+            }
         } catch (Exception e) {
             handleSecurityError("Menu selection failed", e);
         }
@@ -247,6 +344,7 @@ public class MainActivity extends AppCompatActivity {
         try {
             serviceSwitch = findViewById(R.id.service_switch);
             statusText = findViewById(R.id.status_text);
+            scheduleText = findViewById(R.id.schedule_text);
             bottomStatusText = findViewById(R.id.bottom_status_text);
             statusIndicator = findViewById(R.id.status_indicator);
             languageSpinner = findViewById(R.id.language_spinner);
@@ -358,6 +456,7 @@ public class MainActivity extends AppCompatActivity {
                     try {
                         updateServiceStatus();
                         performQuickSecurityCheck();
+                        errorAggregator.drain(SystemClock.elapsedRealtime());
                         statusCheckHandler.postDelayed(this, 2000);
                     } catch (Exception e) {
                         handleSecurityError("Status check failed", e);
@@ -371,23 +470,36 @@ public class MainActivity extends AppCompatActivity {
 
     private void setupSecurityMonitoring() {
         try {
-            securityExecutor = Executors.newSingleThreadScheduledExecutor();
-            securityExecutor.scheduleAtFixedRate(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        performDeepSecurityCheck();
-                        validateServiceIntegrity();
-                    } catch (Exception e) {
-                        handleSecurityError("Background security check failed", e);
-                    }
-                }
-            }, 30, 60, TimeUnit.SECONDS);
+            securityMonitor = new ViewModelProvider(this).get(SecurityMonitorViewModel.class);
         } catch (Exception e) {
             handleSecurityError("Security monitoring setup failed", e);
         }
     }
 
+    private void startSecurityMonitoring() {
+        if (securityMonitor == null) {
+            return;
+        }
+        securityMonitor.onVisible(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    performDeepSecurityCheck();
+                    validateServiceIntegrity();
+                    logSecurityEvent("UI process footprint: " + ProcessFootprint.describe());
+                } catch (Exception e) {
+                    handleSecurityError("Background security check failed", e);
+                }
+            }
+        });
+    }
+
+    private void stopSecurityMonitoring() {
+        if (securityMonitor != null) {
+            securityMonitor.onHidden();
+        }
+    }
+
     private void startStatusChecking() {
         try {
             if (statusCheckHandler != null && statusCheckRunnable != null) {
@@ -513,6 +625,22 @@ private boolean isFirstRun() {
         }
     }
 
+    private void handleRestoreIntent(Intent intent) {
+        try {
+            if (intent == null || !intent.getBooleanExtra(GuardWatchdog.EXTRA_RESTORE, false)) {
+                return;
+            }
+            intent.removeExtra(GuardWatchdog.EXTRA_RESTORE);
+            updateServiceStatus();
+            if (!isServiceRunning) {
+                logSecurityEvent("Restoring protection after a blocked watchdog restart");
+                startProtectionService();
+            }
+        } catch (Exception e) {
+            handleSecurityError("Protection restore failed", e);
+        }
+    }
+
     private void requestMicrophonePermission() {
         try {
             ActivityCompat.requestPermissions(
@@ -578,7 +706,7 @@ private boolean isFirstRun() {
 
     private void startProtectionService() {
         try {
-            preferences.edit().putBoolean("pending_security_level", isSecurityEnhanced).apply();
+            saveGuardSettings(true);
             
             if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) 
                     != PackageManager.PERMISSION_GRANTED) {
@@ -597,6 +725,8 @@ private boolean isFirstRun() {
             
             Intent serviceIntent = new Intent(this, MicGuardService.class);
             serviceIntent.putExtra("security_enhanced", isSecurityEnhanced);
+            serviceIntent.putExtra(MicGuardService.EXTRA_REQUESTED_AT, SystemClock.elapsedRealtime());
+            serviceIntent.putExtra(MicGuardService.EXTRA_TOGGLE_SOURCE, MicGuardService.TOGGLE_SOURCE_APP);
             
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 startForegroundService(serviceIntent);
@@ -604,10 +734,12 @@ private boolean isFirstRun() {
                 startService(serviceIntent);
             }
             
-            serviceSwitch.postDelayed(new Runnable() {
+            cancelStartConfirmationFallback();
+            startConfirmationFallback = new Runnable() {
                 @Override
                 public void run() {
                     try {
+                        startConfirmationFallback = null;
                         updateServiceStatus();
                         showLoading(false);
                         validateServiceRunning();
@@ -615,7 +747,8 @@ private boolean isFirstRun() {
                         handleSecurityError("Service start validation failed", e);
                     }
                 }
-            }, 1000);
+            };
+            serviceSwitch.postDelayed(startConfirmationFallback, START_CONFIRMATION_TIMEOUT);
             
         } catch (Exception e) {
             handleSecurityError("Service start failed", e);
@@ -627,8 +760,10 @@ private boolean isFirstRun() {
     private void stopProtectionService() {
         try {
             logSecurityEvent("Protection service stop requested");
+            cancelStartConfirmationFallback();
+            showLoading(false);
             
-            preferences.edit().putBoolean("pending_security_level", isSecurityEnhanced).apply();
+            saveGuardSettings(false);
             
             Intent serviceIntent = new Intent(this, MicGuardService.class);
             stopService(serviceIntent);
@@ -650,6 +785,87 @@ private boolean isFirstRun() {
         }
     }
 
+    private void runSettingsTask(final String site, final Runnable task) {
+        try {
+            settingsExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (final Exception e) {
+                        runOnUi(new Runnable() {
+                            @Override
+                            public void run() {
+                                handleSecurityError(site, e);
+                            }
+                        });
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            handleSecurityError(site, e);
+        }
+    }
+
+    private void runOnUi(final Runnable task) {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                if (!isDestroyed()) {
+                    task.run();
+                }
+            }
+        });
+    }
+
+    private void saveGuardSettings(final boolean protectionEnabled) {
+        final boolean securityEnhanced = isSecurityEnhanced;
+        runSettingsTask("Guard settings saving failed", new Runnable() {
+            @Override
+            public void run() {
+                GuardSettings.load(MainActivity.this)
+                    .setProtectionEnabled(protectionEnabled)
+                    .putBoolean(GuardSettings.KEY_SECURITY_ENHANCED, securityEnhanced)
+                    .save();
+            }
+        });
+    }
+
+    private void updateScheduleStatus() {
+        if (scheduleText == null) {
+            return;
+        }
+        runSettingsTask("Schedule status update failed", new Runnable() {
+            @Override
+            public void run() {
+                GuardSettings settings = GuardSettings.load(MainActivity.this);
+                final long next = settings.getLong(GuardSettings.KEY_SCHEDULE_NEXT, -1);
+                final boolean active = settings.getBoolean(GuardSettings.KEY_SCHEDULE_ACTIVE, false);
+                runOnUi(new Runnable() {
+                    @Override
+                    public void run() {
+                        showScheduleStatus(next, active);
+                    }
+                });
+            }
+        });
+    }
+
+    private void showScheduleStatus(long next, boolean active) {
+        try {
+            if (next <= 0) {
+                scheduleText.setVisibility(View.GONE);
+                return;
+            }
+            String when = DateUtils.formatDateTime(this, next,
+                DateUtils.FORMAT_SHOW_TIME | DateUtils.FORMAT_SHOW_WEEKDAY | DateUtils.FORMAT_ABBREV_WEEKDAY);
+            scheduleText.setText(getString(active ? R.string.schedule_next_stop : R.string.schedule_next_start, when));
+            scheduleText.setVisibility(View.VISIBLE);
+        } catch (Exception e) {
+            handleSecurityError("Schedule status update failed", e);
+        }
+    }
+
     private void updateServiceStatus() {
         try {
             ActivityManager manager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
@@ -664,22 +880,50 @@ private boolean isFirstRun() {
                 }
             }
             
-            isServiceRunning = isRunning;
-            
-            if (serviceSwitch != null) {
-                serviceSwitch.setOnCheckedChangeListener(null);
-                serviceSwitch.setChecked(isRunning);
-                setupServiceSwitch();
-            }
-            
-            updateStatusUI(isRunning);
-            updateBottomStatus(isRunning);
+            applyServiceState(isRunning);
             
         } catch (Exception e) {
             handleSecurityError("Service status update failed", e);
         }
     }
 
+    private void applyServiceState(boolean isRunning) {
+        isServiceRunning = isRunning;
+        
+        if (serviceSwitch != null) {
+            serviceSwitch.setOnCheckedChangeListener(null);
+            serviceSwitch.setChecked(isRunning);
+            setupServiceSwitch();
+        }
+        
+        updateStatusUI(isRunning);
+        updateBottomStatus(isRunning);
+    }
+
+    private void onMicHeldChanged(boolean held, long toggleLatency) {
+        try {
+            if (held) {
+                cancelStartConfirmationFallback();
+                showLoading(false);
+                if (toggleLatency >= 0) {
+                    logSecurityEvent("Protection active " + toggleLatency + "ms after toggle");
+                }
+                applyServiceState(true);
+            } else {
+                updateServiceStatus();
+            }
+        } catch (Exception e) {
+            handleSecurityError("Mic state update failed", e);
+        }
+    }
+
+    private void cancelStartConfirmationFallback() {
+        if (serviceSwitch != null && startConfirmationFallback != null) {
+            serviceSwitch.removeCallbacks(startConfirmationFallback);
+        }
+        startConfirmationFallback = null;
+    }
+
     private void updateStatusUI(boolean isRunning) {
         try {
             if (statusText != null) {
@@ -768,6 +1012,352 @@ private boolean isFirstRun() {
             handleSecurityError("Settings dialog failed", e);
         }
     }
+
+    private void showYieldAllowlistDialog() {
+        runSettingsTask("Yield allowlist dialog failed", new Runnable() {
+            @Override
+            public void run() {
+                final String allowlist = GuardSettings.load(MainActivity.this)
+                    .getString(GuardSettings.KEY_YIELD_ALLOWLIST, "");
+                runOnUi(new Runnable() {
+                    @Override
+                    public void run() {
+                        showYieldAllowlistDialog(allowlist);
+                    }
+                });
+            }
+        });
+    }
+
+    private void showYieldAllowlistDialog(String allowlist) {
+        try {
+            final EditText input = new EditText(this);
+            input.setSingleLine(false);
+            input.setHint("com.example.app");
+            input.setText(allowlist);
+            
+            LinearLayout layout = new LinearLayout(this);
+            layout.setOrientation(LinearLayout.VERTICAL);
+            layout.setPadding(50, 20, 50, 0);
+            layout.addView(input);
+            
+            AlertDialog.Builder builder = new AlertDialog.Builder(this, R.style.AlertDialogTheme);
+            builder.setTitle(R.string.yield_allowlist_title)
+                   .setMessage(R.string.yield_allowlist_message)
+                   .setView(layout)
+                   .setPositiveButton(android.R.string.ok, new DialogInterface.OnClickListener() {
+                       @Override
+                       public void onClick(DialogInterface dialog, int which) {
+                           final String allowlist = input.getText().toString().replace('\n', ',').replace(" ", "");
+                           runSettingsTask("Yield allowlist saving failed", new Runnable() {
+                               @Override
+                               public void run() {
+                                   GuardSettings.load(MainActivity.this)
+                                       .putString(GuardSettings.KEY_YIELD_ALLOWLIST, allowlist)
+                                       .save();
+                                   logSecurityEvent("Yield allowlist updated");
+                               }
+                           });
+                       }
+                   })
+                   .setNegativeButton(android.R.string.cancel, null)
+                   .setCancelable(true);
+            
+            if (!CallYieldMonitor.hasUsageAccess(this)) {
+                builder.setNeutralButton(R.string.yield_allowlist_usage_access, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        try {
+                            startActivity(new Intent(Settings.ACTION_USAGE_ACCESS_SETTINGS));
+                        } catch (Exception e) {
+                            handleSecurityError("Usage access settings failed", e);
+                        }
+                    }
+                });
+            }
+            
+            builder.show();
+        } catch (Exception e) {
+            handleSecurityError("Yield allowlist dialog failed", e);
+        }
+    }
+
+    private void showScheduleDialog() {
+        try {
+            final TimePicker startPicker = new TimePicker(this);
+            final TimePicker endPicker = new TimePicker(this);
+            startPicker.setIs24HourView(true);
+            endPicker.setIs24HourView(true);
+            startPicker.setHour(22);
+            startPicker.setMinute(0);
+            endPicker.setHour(7);
+            endPicker.setMinute(0);
+            
+            LinearLayout layout = new LinearLayout(this);
+            layout.setOrientation(LinearLayout.VERTICAL);
+            layout.setPadding(50, 20, 50, 0);
+            
+            TextView startLabel = new TextView(this);
+            startLabel.setText(R.string.schedule_start_label);
+            layout.addView(startLabel);
+            layout.addView(startPicker);
+            TextView endLabel = new TextView(this);
+            endLabel.setText(R.string.schedule_end_label);
+            layout.addView(endLabel);
+            layout.addView(endPicker);
+            
+            String[] weekdays = new DateFormatSymbols(getResources().getConfiguration().locale).getShortWeekdays();
+            final CheckBox[] dayBoxes = new CheckBox[7];
+            LinearLayout dayRow = new LinearLayout(this);
+            dayRow.setOrientation(LinearLayout.HORIZONTAL);
+            for (int i = 0; i < dayBoxes.length; i++) {
+                dayBoxes[i] = new CheckBox(this);
+                dayBoxes[i].setText(weekdays[(i + 1) % 7 + 1]);
+                dayBoxes[i].setChecked(true);
+                dayRow.addView(dayBoxes[i]);
+            }
+            HorizontalScrollView dayScroll = new HorizontalScrollView(this);
+            dayScroll.addView(dayRow);
+            layout.addView(dayScroll);
+            final CheckBox oneOffBox = new CheckBox(this);
+            oneOffBox.setText(R.string.schedule_one_off);
+            oneOffBox.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+                @Override
+                public void onCheckedChanged(CompoundButton button, boolean checked) {
+                    for (CheckBox dayBox : dayBoxes) {
+                        dayBox.setEnabled(!checked);
+                    }
+                }
+            });
+            layout.addView(oneOffBox);
+            
+            ScrollView scrollView = new ScrollView(this);
+            scrollView.addView(layout);
+            
+            AlertDialog.Builder builder = new AlertDialog.Builder(this, R.style.AlertDialogTheme);
+            builder.setTitle(R.string.schedule_title)
+                   .setView(scrollView)
+                   .setPositiveButton(R.string.schedule_add, new DialogInterface.OnClickListener() {
+                       @Override
+                       public void onClick(DialogInterface dialog, int which) {
+                           final int startMinute = startPicker.getHour() * 60 + startPicker.getMinute();
+                           final int endMinute = endPicker.getHour() * 60 + endPicker.getMinute();
+                           final boolean oneOff = oneOffBox.isChecked();
+                           int checkedDays = 0;
+                           for (int i = 0; i < dayBoxes.length; i++) {
+                               if (dayBoxes[i].isChecked()) {
+                                   checkedDays |= 1 << i;
+                               }
+                           }
+                           final int dayMask = checkedDays;
+                           runSettingsTask("Schedule saving failed", new Runnable() {
+                               @Override
+                               public void run() {
+                                   GuardSettings settings = GuardSettings.load(MainActivity.this);
+                                   ProtectionSchedule schedule = ProtectionSchedule.parse(
+                                       settings.getString(GuardSettings.KEY_SCHEDULE, ""));
+                                   if (oneOff) {
+                                       schedule.addOneOff(ProtectionSchedule.nextOneOff(System.currentTimeMillis(),
+                                           TimeZone.getDefault(), startMinute, endMinute));
+                                   } else {
+                                       schedule.addWeekly(new ProtectionSchedule.WeeklyWindow(dayMask, startMinute, endMinute));
+                                   }
+                                   settings.putString(GuardSettings.KEY_SCHEDULE, schedule.encode()).save();
+                                   applySchedule();
+                                   logSecurityEvent(oneOff ? "One-off protection window added" : "Protection window added");
+                               }
+                           });
+                       }
+                   })
+                   .setNeutralButton(R.string.schedule_clear, new DialogInterface.OnClickListener() {
+                       @Override
+                       public void onClick(DialogInterface dialog, int which) {
+                           runSettingsTask("Schedule clearing failed", new Runnable() {
+                               @Override
+                               public void run() {
+                                   GuardSettings.load(MainActivity.this)
+                                       .putString(GuardSettings.KEY_SCHEDULE, "")
+                                       .save();
+                                   applySchedule();
+                                   logSecurityEvent("Protection schedule cleared");
+                               }
+                           });
+                       }
+                   })
+                   .setNegativeButton(android.R.string.cancel, null)
+                   .setCancelable(true);
+            
+            builder.show();
+        } catch (Exception e) {
+            handleSecurityError("Schedule dialog failed", e);
+        }
+    }
+
+    private void showMetricsDialog() {
+        try {
+            java.io.File file = new java.io.File(GuardSettings.directory(this), MetricsStore.FILE_NAME);
+            long now = System.currentTimeMillis();
+            long hour = MetricsStore.Archive.HOUR.step;
+            
+            StringBuilder message = new StringBuilder();
+            appendMetrics(message, R.string.metrics_last_hour,
+                MetricsStore.read(file, MetricsStore.Archive.MINUTE, now - hour, now + hour));
+            appendMetrics(message, R.string.metrics_last_day,
+                MetricsStore.read(file, MetricsStore.Archive.MINUTE, now - 24 * hour, now + hour));
+            appendMetrics(message, R.string.metrics_last_week,
+                MetricsStore.read(file, MetricsStore.Archive.HOUR, now - 7 * 24 * hour, now + hour));
+            appendMetrics(message, R.string.metrics_last_month,
+                MetricsStore.read(file, MetricsStore.Archive.HOUR, now - 30 * 24 * hour, now + hour));
+            
+            AlertDialog.Builder builder = new AlertDialog.Builder(this, R.style.AlertDialogTheme);
+            builder.setTitle(R.string.metrics_title)
+                   .setMessage(message.length() > 0 ? message.toString() : getString(R.string.metrics_empty))
+                   .setPositiveButton(R.string.info_close, null)
+                   .setCancelable(true)
+                   .show();
+        } catch (Exception e) {
+            handleSecurityError("Metrics dialog failed", e);
+        }
+    }
+
+    private void showAccessHistoryDialog() {
+        try {
+            AccessHistoryStore store = AccessHistoryStore.open(GuardSettings.directory(this));
+            AlertDialog.Builder builder = new AlertDialog.Builder(this, R.style.AlertDialogTheme);
+            builder.setTitle(R.string.access_history_title)
+                   .setPositiveButton(R.string.info_close, null)
+                   .setCancelable(true);
+            if (store.size() == 0) {
+                builder.setMessage(R.string.access_history_empty);
+            } else {
+                ListView list = new ListView(this);
+                list.setAdapter(new AccessHistoryAdapter(this, store));
+                builder.setView(list);
+            }
+            builder.show();
+        } catch (Exception e) {
+            handleSecurityError("Access history dialog failed", e);
+        }
+    }
+
+    private void showCalibrationDialog() {
+        runSettingsTask("Calibration dialog failed", new Runnable() {
+            @Override
+            public void run() {
+                final String report = GuardSettings.load(MainActivity.this)
+                    .getString(GuardSettings.KEY_CALIBRATION_REPORT, "");
+                runOnUi(new Runnable() {
+                    @Override
+                    public void run() {
+                        showCalibrationDialog(report);
+                    }
+                });
+            }
+        });
+    }
+
+    private void showCalibrationDialog(String report) {
+        try {
+            int minutes = (int) Math.max(1, (GuardCalibration.estimatedDuration() + 59999) / 60000);
+            String message = getString(R.string.calibration_intro, minutes);
+            if (!report.isEmpty()) {
+                message += "\n\n" + report;
+            }
+            new AlertDialog.Builder(this, R.style.AlertDialogTheme)
+                .setTitle(R.string.calibration_title)
+                .setMessage(message)
+                .setPositiveButton(R.string.calibration_run, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        startCalibration();
+                    }
+                })
+                .setNegativeButton(R.string.info_close, null)
+                .setCancelable(true)
+                .show();
+        } catch (Exception e) {
+            handleSecurityError("Calibration dialog failed", e);
+        }
+    }
+
+    private void startCalibration() {
+        try {
+            if (!isServiceRunning) {
+                Toast.makeText(this, R.string.calibration_requires_service, Toast.LENGTH_LONG).show();
+                return;
+            }
+            if (!GuardCalibration.isSupported()) {
+                Toast.makeText(this, R.string.calibration_unsupported, Toast.LENGTH_LONG).show();
+                return;
+            }
+            Intent intent = new Intent(this, MicGuardService.class);
+            intent.setAction(MicGuardService.ACTION_CALIBRATE);
+            startService(intent);
+            Toast.makeText(this, R.string.calibration_started, Toast.LENGTH_SHORT).show();
+        } catch (Exception e) {
+            handleSecurityError("Calibration start failed", e);
+        }
+    }
+
+    private void showCalibrationResult(final boolean applied) {
+        runSettingsTask("Calibration result dialog failed", new Runnable() {
+            @Override
+            public void run() {
+                GuardSettings settings = GuardSettings.load(MainActivity.this);
+                final String report = settings.getString(GuardSettings.KEY_CALIBRATION_REPORT, "");
+                final CaptureTuning tuning = CaptureTuning.decode(settings.getString(GuardSettings.KEY_CAPTURE_TUNING, ""));
+                runOnUi(new Runnable() {
+                    @Override
+                    public void run() {
+                        showCalibrationResult(applied, report, tuning);
+                    }
+                });
+            }
+        });
+    }
+
+    private void showCalibrationResult(boolean applied, String report, CaptureTuning tuning) {
+        try {
+            String summary = applied && tuning != null
+                ? getString(R.string.calibration_applied, tuning.describe())
+                : getString(R.string.calibration_no_winner);
+            new AlertDialog.Builder(this, R.style.AlertDialogTheme)
+                .setTitle(R.string.calibration_title)
+                .setMessage(report.isEmpty() ? summary : summary + "\n\n" + report)
+                .setPositiveButton(R.string.info_close, null)
+                .setCancelable(true)
+                .show();
+        } catch (Exception e) {
+            handleSecurityError("Calibration result dialog failed", e);
+        }
+    }
+
+    private void appendMetrics(StringBuilder message, int labelRes, List<MetricsStore.Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        MetricsStore.Row total = MetricsStore.total(rows);
+        int heldPercent = total.uptimeMs > 0 ? (int) (total.heldMs * 100 / total.uptimeMs) : 0;
+        String battery = total.batteryPercent >= 0 ? total.batteryPercent + "%" : "-";
+        if (message.length() > 0) {
+            message.append("\n\n");
+        }
+        message.append(getString(labelRes)).append('\n')
+               .append(getString(R.string.metrics_line, DateUtils.formatElapsedTime(total.uptimeMs / 1000),
+                   heldPercent, total.errors, total.securityViolations, total.yields, battery));
+    }
+
+    private void applySchedule() {
+        ScheduleReceiver.reconcile(this);
+        runOnUi(new Runnable() {
+            @Override
+            public void run() {
+                updateScheduleStatus();
+                updateServiceStatus();
+            }
+        });
+    }
+
     private void showExitConfirmationDialog() {
         try {
             AlertDialog.Builder builder = new AlertDialog.Builder(this, R.style.AlertDialogTheme);
@@ -794,10 +1384,14 @@ private boolean isFirstRun() {
 
     private void registerServiceStateReceiver() {
         try {
+            if (serviceStateReceiver != null) {
+                return;
+            }
             serviceStateReceiver = new ServiceStateReceiver();
             IntentFilter filter = new IntentFilter();
-            filter.addAction("com.privacy.silentagent.SERVICE_STATE_CHANGED");
-            registerReceiver(serviceStateReceiver, filter);
+            filter.addAction(MicGuardService.ACTION_STATE_CHANGED);
+            filter.addAction(MicGuardService.ACTION_CALIBRATION_FINISHED);
+            ContextCompat.registerReceiver(this, serviceStateReceiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
         } catch (Exception e) {
             handleSecurityError("Service receiver registration failed", e);
         }
@@ -843,6 +1437,7 @@ private boolean isFirstRun() {
     }
 
     private void performDeepSecurityCheck() {
+        boolean traced = GuardTrace.begin("MainActivity.deepSecurityCheck");
         try {
             validateApplicationIntegrity();
             checkForTampering();
@@ -850,6 +1445,8 @@ private boolean isFirstRun() {
             checkForMaliciousApps();
         } catch (Exception e) {
             handleSecurityError("Deep security check failed", e);
+        } finally {
+            GuardTrace.end(traced);
         }
     }
 
@@ -979,7 +1576,7 @@ private boolean isFirstRun() {
         try {
             if (isServiceRunning && isSecurityEnhanced) {
                 validateServiceSecurity();
-                checkMemoryLeaksEnhanced();
+                checkMemoryLeaks();
                 validateThreadIntegrity();
             }
         } catch (Exception e) {
@@ -997,21 +1594,6 @@ private boolean isFirstRun() {
         }
     }
 
-    private void checkMemoryLeaksEnhanced() {
-        try {
-            Runtime runtime = Runtime.getRuntime();
-            long usedMemory = runtime.totalMemory() - runtime.freeMemory();
-            long maxMemory = runtime.maxMemory();
-            
-            if (usedMemory > maxMemory * 0.8) {
-                logSecurityEvent("High memory usage detected: " + (usedMemory / 1024 / 1024) + "MB");
-                System.gc();
-            }
-        } catch (Exception e) {
-            handleSecurityError("Memory leak check failed", e);
-        }
-    }
-
     private void validateThreadIntegrity() {
         try {
             if (statusCheckHandler == null) {
@@ -1165,18 +1747,32 @@ private boolean isFirstRun() {
 
     private void checkMemoryLeaks() {
         try {
-            Runtime runtime = Runtime.getRuntime();
-            long usedMemory = runtime.totalMemory() - runtime.freeMemory();
-            long maxMemory = runtime.maxMemory();
-            
-            if (usedMemory > maxMemory * 0.8) {
-                logSecurityEvent("High memory usage detected");
-            }
+            memoryManager.sample(SystemClock.elapsedRealtime());
         } catch (Exception e) {
             handleSecurityError("Memory leak check failed", e);
         }
     }
 
+    private void registerMemoryShedders() {
+        memoryManager.register(MemoryManager.TIER_CACHE, "error_aggregator", new MemoryManager.Shedder() {
+            @Override
+            public long shed() {
+                errorAggregator.drainAll();
+                return 0;
+            }
+        });
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        try {
+            memoryManager.onTrimMemory(level);
+        } catch (Exception e) {
+            handleSecurityError("Trim memory handling failed", e);
+        }
+    }
+
     private void preventScreenCapture() {
         try {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
@@ -1194,21 +1790,21 @@ private boolean isFirstRun() {
                       .putBoolean(PREF_SECURITY_LEVEL, isSecurityEnhanced)
                       .putLong(PREF_LAST_SECURITY_CHECK, lastSecurityCheck)
                       .apply();
+            final boolean securityEnhanced = isSecurityEnhanced;
+            runSettingsTask("Security state saving failed", new Runnable() {
+                @Override
+                public void run() {
+                    GuardSettings settings = GuardSettings.load(MainActivity.this);
+                    if (settings.getBoolean(GuardSettings.KEY_SECURITY_ENHANCED, !securityEnhanced) != securityEnhanced) {
+                        settings.putBoolean(GuardSettings.KEY_SECURITY_ENHANCED, securityEnhanced).save();
+                    }
+                }
+            });
         } catch (Exception e) {
             handleSecurityError("Security state saving failed", e);
         }
     }
 
-    private void cleanupSecurityResources() {
-        try {
-            if (securityExecutor != null && !securityExecutor.isShutdown()) {
-                securityExecutor.shutdown();
-            }
-        } catch (Exception e) {
-            handleSecurityError("Security cleanup failed", e);
-        }
-    }
-
     private void logSecurityEvent(String event) {
         try {
             android.util.Log.d("SilentAgent_Security", event + " at " + System.currentTimeMillis());
@@ -1218,6 +1814,9 @@ private boolean isFirstRun() {
 
     private void handleSecurityError(String message, Exception e) {
         try {
+            if (!errorAggregator.record(message, e, SystemClock.elapsedRealtime())) {
+                return;
+            }
             logSecurityEvent("SECURITY_ERROR: " + message);
             android.util.Log.e("SilentAgent_Security", message, e);
             
@@ -1250,8 +1849,17 @@ private boolean isFirstRun() {
         @Override
         public void onReceive(Context context, Intent intent) {
             try {
-                if ("com.privacy.silentagent.SERVICE_STATE_CHANGED".equals(intent.getAction())) {
-                    updateServiceStatus();
+                if (MicGuardService.ACTION_STATE_CHANGED.equals(intent.getAction())) {
+                    if (intent.hasExtra(MicGuardService.EXTRA_MIC_HELD)) {
+                        onMicHeldChanged(
+                            intent.getBooleanExtra(MicGuardService.EXTRA_MIC_HELD, false),
+                            intent.getLongExtra(MicGuardService.EXTRA_TOGGLE_LATENCY, -1)
+                        );
+                    } else {
+                        updateServiceStatus();
+                    }
+                } else if (MicGuardService.ACTION_CALIBRATION_FINISHED.equals(intent.getAction())) {
+                    showCalibrationResult(intent.getBooleanExtra(MicGuardService.EXTRA_CALIBRATION_APPLIED, false));
                 }
             } catch (Exception e) {
                 handleSecurityError("Service receiver failed", e);
@@ -0,0 +1,221 @@
+package com.privacy.silentagent;
+
+import android.content.ComponentCallbacks2;
+import android.os.Debug;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+final class MemoryManager {
+
+    interface Listener {
+        void onMemoryEvent(String message);
+    }
+
+    interface Shedder {
+        long shed();
+    }
+
+    static final int TIER_NONE = -1;
+    static final int TIER_CACHE = 0;
+    static final int TIER_BUFFER = 1;
+    static final int TIER_OPTIONAL = 2;
+
+    static final long SAMPLE_WINDOW = 5 * 60 * 1000;
+    static final int TREND_WINDOWS = 12;
+
+    private static final long JAVA_LEAK_GROWTH = 4L * 1024 * 1024;
+    private static final long NATIVE_LEAK_GROWTH = 8L * 1024 * 1024;
+    private static final int LEAK_RISING_PERCENT = 75;
+
+    private static final class Entry {
+        final int tier;
+        final String name;
+        final Shedder shedder;
+
+        Entry(int tier, String name, Shedder shedder) {
+            this.tier = tier;
+            this.name = name;
+            this.shedder = shedder;
+        }
+    }
+
+    private static final class Trend {
+        final String heap;
+        final long threshold;
+        final long[] minima = new long[TREND_WINDOWS];
+        int count = 0;
+        int head = 0;
+        long windowMin = Long.MAX_VALUE;
+        long slope = 0;
+        boolean suspected = false;
+
+        Trend(String heap, long threshold) {
+            this.heap = heap;
+            this.threshold = threshold;
+        }
+
+        void observe(long used) {
+            if (used < windowMin) {
+                windowMin = used;
+            }
+        }
+
+        boolean closeWindow() {
+            if (windowMin == Long.MAX_VALUE) {
+                return false;
+            }
+            minima[head] = windowMin;
+            head = (head + 1) % TREND_WINDOWS;
+            count = Math.min(count + 1, TREND_WINDOWS);
+            windowMin = Long.MAX_VALUE;
+
+            slope = slope();
+            boolean wasSuspected = suspected;
+            suspected = count == TREND_WINDOWS && slope > 0
+                && at(count - 1) - at(0) >= threshold
+                && risingPercent() >= LEAK_RISING_PERCENT;
+            return suspected && !wasSuspected;
+        }
+
+        long at(int index) {
+            return minima[(head - count + index + TREND_WINDOWS) % TREND_WINDOWS];
+        }
+
+        private long slope() {
+            if (count < 2) {
+                return 0;
+            }
+            double meanX = (count - 1) / 2.0;
+            double meanY = 0;
+            for (int i = 0; i < count; i++) {
+                meanY += at(i);
+            }
+            meanY /= count;
+            double numerator = 0;
+            double denominator = 0;
+            for (int i = 0; i < count; i++) {
+                double dx = i - meanX;
+                numerator += dx * (at(i) - meanY);
+                denominator += dx * dx;
+            }
+            return (long) (numerator / denominator);
+        }
+
+        private int risingPercent() {
+            int rising = 0;
+            for (int i = 1; i < count; i++) {
+                if (at(i) > at(i - 1)) {
+                    rising++;
+                }
+            }
+            return rising * 100 / (count - 1);
+        }
+    }
+
+    private final Listener listener;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Trend javaTrend = new Trend("java", JAVA_LEAK_GROWTH);
+    private final Trend nativeTrend = new Trend("native", NATIVE_LEAK_GROWTH);
+
+    private long windowStart = -1;
+    private long lastJavaUsed = 0;
+    private long lastNativeUsed = 0;
+    private long lastPssKb = -1;
+    private int lastTrimLevel = 0;
+    private int trimEvents = 0;
+    private long shedBytes = 0;
+
+    MemoryManager(Listener listener) {
+        this.listener = listener;
+    }
+
+    synchronized void register(int tier, String name, Shedder shedder) {
+        entries.add(new Entry(tier, name, shedder));
+    }
+
+    static int tierFor(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return TIER_OPTIONAL;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return TIER_BUFFER;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return TIER_CACHE;
+        }
+        return TIER_NONE;
+    }
+
+    synchronized void onTrimMemory(int level) {
+        lastTrimLevel = level;
+        trimEvents++;
+        int maxTier = tierFor(level);
+        if (maxTier == TIER_NONE) {
+            return;
+        }
+        long released = 0;
+        StringBuilder shed = new StringBuilder();
+        for (int tier = TIER_CACHE; tier <= maxTier; tier++) {
+            for (Entry entry : entries) {
+                if (entry.tier != tier) {
+                    continue;
+                }
+                try {
+                    released += Math.max(0, entry.shedder.shed());
+                    shed.append(shed.length() > 0 ? ", " : "").append(entry.name);
+                } catch (Exception e) {
+                    listener.onMemoryEvent("Shedding " + entry.name + " failed: " + e.getClass().getSimpleName());
+                }
+            }
+        }
+        shedBytes += released;
+        listener.onMemoryEvent("Trim level " + level + " shed tier <= " + maxTier + " [" + shed + "], ~"
+            + released / 1024 + "KB released");
+    }
+
+    synchronized void sample(long nowElapsed) {
+        Runtime runtime = Runtime.getRuntime();
+        lastJavaUsed = runtime.totalMemory() - runtime.freeMemory();
+        lastNativeUsed = Debug.getNativeHeapAllocatedSize();
+        javaTrend.observe(lastJavaUsed);
+        nativeTrend.observe(lastNativeUsed);
+
+        if (windowStart < 0) {
+            windowStart = nowElapsed;
+            return;
+        }
+        if (nowElapsed - windowStart < SAMPLE_WINDOW) {
+            return;
+        }
+        windowStart = nowElapsed;
+        lastPssKb = Debug.getPss();
+        report(javaTrend);
+        report(nativeTrend);
+    }
+
+    private void report(Trend trend) {
+        if (trend.closeWindow()) {
+            listener.onMemoryEvent("Possible " + trend.heap + " heap leak: floor grew "
+                + (trend.at(trend.count - 1) - trend.at(0)) / 1024 + "KB over " + trend.count + " windows ("
+                + trend.slope / 1024 + "KB per " + SAMPLE_WINDOW / 60000 + "min)");
+        }
+    }
+
+    synchronized void export(String prefix, Map<String, String> out) {
+        out.put(prefix + ".java_used_kb", String.valueOf(lastJavaUsed / 1024));
+        out.put(prefix + ".java_max_kb", String.valueOf(Runtime.getRuntime().maxMemory() / 1024));
+        out.put(prefix + ".native_used_kb", String.valueOf(lastNativeUsed / 1024));
+        out.put(prefix + ".pss_kb", String.valueOf(lastPssKb));
+        out.put(prefix + ".java_slope_kb", String.valueOf(javaTrend.slope / 1024));
+        out.put(prefix + ".native_slope_kb", String.valueOf(nativeTrend.slope / 1024));
+        out.put(prefix + ".java_leak_suspected", String.valueOf(javaTrend.suspected));
+        out.put(prefix + ".native_leak_suspected", String.valueOf(nativeTrend.suspected));
+        out.put(prefix + ".trim_events", String.valueOf(trimEvents));
+        out.put(prefix + ".last_trim_level", String.valueOf(lastTrimLevel));
+        out.put(prefix + ".shed_kb", String.valueOf(shedBytes / 1024));
+    }
+}
@@ -0,0 +1,238 @@
+package com.privacy.silentagent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+final class MetricsStore {
+
+    static final String FILE_NAME = "guard_metrics.rrd";
+
+    enum Archive {
+        MINUTE(60 * 1000L, 24 * 60),
+        HOUR(60 * 60 * 1000L, 30 * 24);
+
+        final long step;
+        final int rows;
+
+        Archive(long step, int rows) {
+            this.step = step;
+            this.rows = rows;
+        }
+    }
+
+    static final class Row {
+        final long start;
+        final long uptimeMs;
+        final long heldMs;
+        final int errors;
+        final int securityViolations;
+        final int yields;
+        final int batteryPercent;
+        final int profileOrdinal;
+
+        Row(long start, long uptimeMs, long heldMs, int errors, int securityViolations, int yields,
+            int batteryPercent, int profileOrdinal) {
+            this.start = start;
+            this.uptimeMs = uptimeMs;
+            this.heldMs = heldMs;
+            this.errors = errors;
+            this.securityViolations = securityViolations;
+            this.yields = yields;
+            this.batteryPercent = batteryPercent;
+            this.profileOrdinal = profileOrdinal;
+        }
+    }
+
+    private static final int MAGIC = 0x5341524d;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ROW_SIZE = 40;
+
+    private static final int FIELD_START = 0;
+    private static final int FIELD_UPTIME = 8;
+    private static final int FIELD_HELD = 12;
+    private static final int FIELD_ERRORS = 16;
+    private static final int FIELD_VIOLATIONS = 20;
+    private static final int FIELD_YIELDS = 24;
+    private static final int FIELD_BATTERY = 28;
+    private static final int FIELD_PROFILE = 32;
+
+    private static final long MAX_TICK_GAP = 60 * 60 * 1000L;
+
+    static final int FILE_SIZE = HEADER_SIZE + (Archive.MINUTE.rows + Archive.HOUR.rows) * ROW_SIZE;
+
+    private final ByteBuffer buffer;
+    private long lastTick = 0;
+    private boolean held = false;
+
+    private MetricsStore(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            for (int offset = 0; offset < FILE_SIZE; offset += 4) {
+                buffer.putInt(offset, 0);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+        }
+    }
+
+    static MetricsStore open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            return new MetricsStore(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE));
+        } finally {
+            raf.close();
+        }
+    }
+
+    static MetricsStore inMemory() {
+        return new MetricsStore(ByteBuffer.allocate(FILE_SIZE));
+    }
+
+    synchronized void tick(long now, boolean heldNow, int batteryPercent, int profileOrdinal) {
+        if (lastTick > 0 && now > lastTick && now - lastTick <= MAX_TICK_GAP) {
+            long from = lastTick;
+            while (from < now) {
+                long to = Math.min(now, bucketStart(from, Archive.MINUTE) + Archive.MINUTE.step);
+                int span = (int) (to - from);
+                for (Archive archive : Archive.values()) {
+                    int row = row(from, archive);
+                    add(row, FIELD_UPTIME, span);
+                    if (held) {
+                        add(row, FIELD_HELD, span);
+                    }
+                }
+                from = to;
+            }
+        }
+        for (Archive archive : Archive.values()) {
+            int row = row(now, archive);
+            if (batteryPercent >= 0) {
+                buffer.putInt(row + FIELD_BATTERY, batteryPercent + 1);
+            }
+            buffer.putInt(row + FIELD_PROFILE, profileOrdinal + 1);
+        }
+        lastTick = now;
+        held = heldNow;
+    }
+
+    synchronized void addErrors(long now, int count) {
+        addToAll(now, FIELD_ERRORS, count);
+    }
+
+    synchronized void addSecurityViolations(long now, int count) {
+        addToAll(now, FIELD_VIOLATIONS, count);
+    }
+
+    synchronized void addYield(long now) {
+        addToAll(now, FIELD_YIELDS, 1);
+    }
+
+    synchronized void flush() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    static List<Row> read(File file, Archive archive, long from, long to) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        if (!file.exists() || file.length() < FILE_SIZE) {
+            return rows;
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            ByteBuffer view = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, FILE_SIZE);
+            if (view.getInt(0) != MAGIC || view.getInt(4) != VERSION) {
+                return rows;
+            }
+            int base = archiveOffset(archive);
+            for (int i = 0; i < archive.rows; i++) {
+                int row = base + i * ROW_SIZE;
+                long start = view.getLong(row + FIELD_START);
+                if (start <= 0 || start <= from - archive.step || start >= to) {
+                    continue;
+                }
+                rows.add(new Row(start,
+                    view.getInt(row + FIELD_UPTIME) & 0xffffffffL,
+                    view.getInt(row + FIELD_HELD) & 0xffffffffL,
+                    view.getInt(row + FIELD_ERRORS),
+                    view.getInt(row + FIELD_VIOLATIONS),
+                    view.getInt(row + FIELD_YIELDS),
+                    view.getInt(row + FIELD_BATTERY) - 1,
+                    view.getInt(row + FIELD_PROFILE) - 1));
+            }
+        } finally {
+            raf.close();
+        }
+        Collections.sort(rows, new Comparator<Row>() {
+            @Override
+            public int compare(Row a, Row b) {
+                return Long.compare(a.start, b.start);
+            }
+        });
+        return rows;
+    }
+
+    static Row total(List<Row> rows) {
+        long start = rows.isEmpty() ? 0 : rows.get(0).start;
+        long uptime = 0;
+        long heldMs = 0;
+        int errors = 0;
+        int violations = 0;
+        int yields = 0;
+        int battery = -1;
+        int profile = -1;
+        for (Row row : rows) {
+            uptime += row.uptimeMs;
+            heldMs += row.heldMs;
+            errors += row.errors;
+            violations += row.securityViolations;
+            yields += row.yields;
+            if (row.batteryPercent >= 0) {
+                battery = row.batteryPercent;
+            }
+            if (row.profileOrdinal >= 0) {
+                profile = row.profileOrdinal;
+            }
+        }
+        return new Row(start, uptime, heldMs, errors, violations, yields, battery, profile);
+    }
+
+    private void addToAll(long now, int field, int count) {
+        for (Archive archive : Archive.values()) {
+            add(row(now, archive), field, count);
+        }
+    }
+
+    private void add(int row, int field, int value) {
+        buffer.putInt(row + field, buffer.getInt(row + field) + value);
+    }
+
+    private int row(long time, Archive archive) {
+        long start = bucketStart(time, archive);
+        int row = archiveOffset(archive) + (int) ((start / archive.step) % archive.rows) * ROW_SIZE;
+        if (buffer.getLong(row + FIELD_START) != start) {
+            for (int offset = 0; offset < ROW_SIZE; offset += 4) {
+                buffer.putInt(row + offset, 0);
+            }
+            buffer.putLong(row + FIELD_START, start);
+        }
+        return row;
+    }
+
+    private static long bucketStart(long time, Archive archive) {
+        return time - (time % archive.step);
+    }
+
+    private static int archiveOffset(Archive archive) {
+        return archive == Archive.MINUTE ? HEADER_SIZE : HEADER_SIZE + Archive.MINUTE.rows * ROW_SIZE;
+    }
+}
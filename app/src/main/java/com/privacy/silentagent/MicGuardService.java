@@ -7,46 +7,67 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.content.IntentFilter;
 import android.content.pm.ServiceInfo;
-import android.media.AudioFormat;
 import android.media.AudioManager;
-import android.media.AudioRecord;
-import android.media.MediaRecorder;
 import android.os.Build;
+import android.os.FileObserver;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
 import android.os.PowerManager;
+import android.os.SystemClock;
+import android.os.UserManager;
 import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+import com.privacy.silentagent.core.CaptureTuning;
+import com.privacy.silentagent.core.GuardEngine;
+import com.privacy.silentagent.core.HoldQualityMonitor;
+import com.privacy.silentagent.core.PowerProfile;
+import com.privacy.silentagent.core.RetryPolicy;
+import com.privacy.silentagent.core.SilenceDetector;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MicGuardService extends Service {
 
+    static final String ACTION_STATE_CHANGED = "com.privacy.silentagent.SERVICE_STATE_CHANGED";
+    static final String ACTION_CALIBRATE = "com.privacy.silentagent.CALIBRATE";
+    static final String ACTION_CALIBRATION_FINISHED = "com.privacy.silentagent.CALIBRATION_FINISHED";
+    static final String EXTRA_MIC_HELD = "mic_held";
+    static final String EXTRA_REQUESTED_AT = "requested_at";
+    static final String EXTRA_TOGGLE_LATENCY = "toggle_latency";
+    static final String EXTRA_BOOT_START = "boot_start";
+    static final String EXTRA_WATCHDOG_RESTART = "watchdog_restart";
+    static final String EXTRA_CALIBRATION_APPLIED = "calibration_applied";
+    static final String EXTRA_TOGGLE_SOURCE = "toggle_source";
+    static final String TOGGLE_SOURCE_APP = "app";
+    static final String TOGGLE_SOURCE_TILE = "tile";
+    static final String SNAPSHOT_FILE = "guard_state.bin";
+
     private static final String CHANNEL_ID = "mic_guard_channel";
     private static final String ALERT_CHANNEL_ID = "mic_alert_channel";
     private static final int NOTIFICATION_ID = 1001;
     private static final int ALERT_NOTIFICATION_ID = 1002;
     
-    private static final int LOW_RATE = 8000;
-    private static final int HIGH_RATE = 44100;
-    private static final int STABILIZATION_DURATION = 10000;
-    private static final int CRITICAL_WAKELOCK_DURATION = 30000;
-    private static final int LOW_POWER_SLEEP = 15;
-    private static final int HIGH_POWER_SLEEP = 5;
-    private static final int RETRY_DELAY = 2000;
-    private static final int MAX_CONSECUTIVE_ERRORS = 5;
-    private static final int SECURITY_CHECK_INTERVAL = 30000;
-    private static final int MAX_MEMORY_USAGE = 50 * 1024 * 1024;
+    private static final long CALIBRATION_RELEASE_TIMEOUT = 2000;
+    private static final long CALIBRATION_RELEASE_POLL = 50;
+    private static final String REASON_CALIBRATION = "calibration";
+    private static final long SNAPSHOT_FRESHNESS = 10 * 60 * 1000;
+    private static final long SECURITY_CHECK_FRESHNESS = 15 * 60 * 1000;
+    private static final long RECLAIM_BUDGET = 500;
+    private static final long ERROR_WINDOW = 60000;
     
-    private AudioRecord recorder;
     private Thread micThread;
     private Thread securityThread;
     private volatile boolean running = false;
-    private volatile boolean isHighPowerMode = false;
-    private volatile int currentRate = LOW_RATE;
-    private volatile int consecutiveErrors = 0;
+    private PowerProfileMonitor powerProfileMonitor;
     private volatile long lastSecurityCheck = 0;
     private volatile boolean isSecurityCompromised = false;
     private PowerManager.WakeLock wakeLock;
@@ -54,46 +75,178 @@ public class MicGuardService extends Service {
     private Handler handler;
     private Runnable powerDownRunnable;
     private AudioManager audioManager;
-    private Object recorderLock = new Object();
-    private byte[] audioBuffer;
     private long serviceStartTime;
-    private int totalErrors = 0;
     private int securityViolations = 0;
     private volatile boolean isSecurityEnhanced = true;
+    private volatile StopSignal stopSignal = new StopSignal();
+    private volatile long lastShutdownDuration = -1;
+    private volatile boolean micHeld = false;
+    private volatile long pendingRequestAt = 0;
+    private volatile String pendingRequestSource = TOGGLE_SOURCE_APP;
+    private final LatencyHistogram toggleLatency = new LatencyHistogram("toggle_to_held_ms");
+    private final LatencyHistogram tileToggleLatency = new LatencyHistogram("tile_to_held_ms");
+    private GuardSnapshot snapshot = GuardSnapshot.inMemory();
+    private MetricsStore metrics = MetricsStore.inMemory();
+    private boolean warmStart = false;
+    private volatile boolean bootStart = false;
+    private volatile boolean securityCheckDeferred = false;
+    private BroadcastReceiver unlockReceiver;
+    private volatile CallYieldMonitor callYieldMonitor;
+    private volatile long reclaimRequestedAt = 0;
+    private final LatencyHistogram reclaimLatency = new LatencyHistogram("reclaim_to_held_ms");
+    private final ErrorAggregator errorAggregator = new ErrorAggregator(ErrorAggregator.DEFAULT_CAPACITY, ERROR_WINDOW,
+        new ErrorAggregator.Reporter() {
+            @Override
+            public void onRepeated(String site, String type, int repeats, long windowMs) {
+                android.util.Log.w("SilentAgent_Service", site + " (" + type + ") repeated " + repeats
+                    + " times within " + windowMs + "ms");
+            }
+        });
+    private final GuardEngine engine = new GuardEngine(new AndroidAudioHal(), AndroidAudioHal.CLOCK,
+        new java.util.Random(), new GuardEngine.Listener() {
+            @Override
+            public void onHeld(int sampleRate, int sessionId) {
+                onRecorderHeld(sampleRate, sessionId);
+            }
+
+            @Override
+            public void onReleased() {
+                onMicReleased();
+            }
+
+            @Override
+            public void onRecovered(int consecutiveErrors) {
+                onMicRecovered(consecutiveErrors);
+            }
+
+            @Override
+            public void onError(int errorCode, RetryPolicy.ErrorClass errorClass, int consecutiveErrors,
+                                int totalErrors, RetryPolicy.CircuitState circuitState, long retryDelay) {
+                onMicError(errorCode, errorClass, consecutiveErrors, totalErrors, circuitState, retryDelay);
+            }
+
+            @Override
+            public void onModeChanged(boolean highPower, int sampleRate) {
+                onCaptureModeChanged(highPower);
+            }
+
+            @Override
+            public void onHoldQualityChanged(int verdict, int sampleRate) {
+                GuardTrace.counter("hold_verdict", verdict);
+                logServiceEvent("Hold quality: " + HoldQualityMonitor.describe(verdict) + " at " + sampleRate + "Hz");
+            }
+
+            @Override
+            public void onSilenceTransition(int transition) {
+                boolean silenced = transition == SilenceDetector.TRANSITION_SILENCED;
+                GuardTrace.counter("input_silenced", silenced ? 1 : 0);
+                logServiceEvent(silenced ? "Capture input silenced by the system" : "Capture input live again");
+            }
+
+            @Override
+            public void onEvent(String message) {
+                logServiceEvent(message);
+            }
+
+            @Override
+            public void onFailure(String message, Exception e) {
+                handleServiceError(message, e);
+            }
+        });
+    private AccessAttributionMonitor accessMonitor;
+    private GuardNotifier notifier;
+    private volatile int blockedAttempts = 0;
+    private volatile long heldSince = 0;
+    private long previousInstanceLastSeen = 0;
+    private volatile boolean calibrating = false;
+    private volatile StopSignal calibrationSignal;
+    private Thread calibrationThread;
+    private final MemoryManager memoryManager = new MemoryManager(new MemoryManager.Listener() {
+        @Override
+        public void onMemoryEvent(String message) {
+            logServiceEvent(message);
+        }
+    });
+    private volatile int wakeLockAcquisitions = 0;
+    private volatile long wakeLockRequestedMs = 0;
+    private final AtomicReference<GuardConfig> config = new AtomicReference<>();
+    private FileObserver configObserver;
+    private final GuardStateReport.Source stateSource = new GuardStateReport.Source() {
+        @Override
+        public void collect(Map<String, String> out) {
+            collectState(out);
+        }
+    };
 
     @Override
     public void onCreate() {
         super.onCreate();
         serviceStartTime = System.currentTimeMillis();
-        audioBuffer = new byte[1024];
+        GuardTrace.refresh();
+        boolean traced = GuardTrace.begin("MicGuardService.onCreate");
         
         try {
             notificationManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
             audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
             handler = new Handler(Looper.getMainLooper());
             
+            startPowerProfileMonitor();
+            restoreSnapshot();
+            reloadConfig("startup");
+            startConfigObserver();
+            openMetrics();
+            startAccessMonitor();
+            registerMemoryShedders();
             createNotificationChannels();
             initializeWakeLock();
-            performServiceSecurityCheck();
-            logServiceEvent("Service created successfully");
+            if (!isUserUnlocked()) {
+                deferSecurityChecksUntilUnlock();
+            } else if (isSecurityCheckFresh()) {
+                logServiceEvent("Skipping service security check, last result still fresh");
+            } else {
+                performServiceSecurityCheck();
+            }
+            GuardStateReport.register(stateSource);
+            logServiceEvent("Service created successfully" + (warmStart ? " (warm start at " + engine.getCurrentRate() + "Hz)" : ""));
+            logServiceEvent("Guard process loaded " + android.os.Debug.getLoadedClassCount() + " classes");
         } catch (Exception e) {
             handleCriticalServiceError("Service creation failed", e);
+        } finally {
+            GuardTrace.end(traced);
         }
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
+        GuardTrace.refresh();
+        boolean traced = GuardTrace.begin("MicGuardService.onStartCommand");
         try {
+            if (previousInstanceLastSeen > 0) {
+                if (intent == null || !intent.getBooleanExtra(EXTRA_WATCHDOG_RESTART, false)) {
+                    recordUnexpectedDeath(previousInstanceLastSeen);
+                }
+                previousInstanceLastSeen = 0;
+            }
+            
             if (intent != null && intent.hasExtra("security_enhanced")) {
                 isSecurityEnhanced = intent.getBooleanExtra("security_enhanced", true);
+                snapshot.recordFlag(GuardSnapshot.FLAG_SECURITY_ENHANCED, isSecurityEnhanced, System.currentTimeMillis());
                 logServiceEvent("Security level set to: " + (isSecurityEnhanced ? "enhanced" : "standard"));
-            } else {
-                SharedPreferences prefs = getSharedPreferences("SilentAgentPrefs", MODE_PRIVATE);
-                boolean savedLevel = prefs.getBoolean("security_level", true);
-                boolean pendingLevel = prefs.getBoolean("pending_security_level", savedLevel);
-                if (pendingLevel != isSecurityEnhanced) {
-                    isSecurityEnhanced = pendingLevel;
-                    logServiceEvent("Security level restored from pending: " + (isSecurityEnhanced ? "enhanced" : "standard"));
+            }
+            
+            if (intent != null && intent.getBooleanExtra(EXTRA_BOOT_START, false) && !running) {
+                bootStart = true;
+                engine.restoreRate(engine.getLowRate());
+                logServiceEvent("Boot start, using low power configuration");
+            }
+            
+            if (intent != null && intent.hasExtra(EXTRA_REQUESTED_AT)) {
+                String source = intent.getStringExtra(EXTRA_TOGGLE_SOURCE);
+                pendingRequestSource = source != null ? source : TOGGLE_SOURCE_APP;
+                pendingRequestAt = intent.getLongExtra(EXTRA_REQUESTED_AT, 0);
+                GuardTrace.beginAsync("toggle_to_held", GuardTrace.COOKIE_TOGGLE);
+                if (micHeld) {
+                    onMicHeld();
                 }
             }
             
@@ -102,14 +255,23 @@ public class MicGuardService extends Service {
                 startForegroundService();
                 startMicrophoneProtection();
                 startSecurityMonitoring();
+                snapshot.recordFlag(GuardSnapshot.FLAG_RUNNING, true, System.currentTimeMillis());
+                GuardWatchdog.schedule(this);
+                GuardWatchdog.cancelRestoreNotification(this);
                 logServiceEvent("Service started successfully");
             } else {
                 logServiceEvent("Service start requested while already running");
             }
+            
+            if (intent != null && ACTION_CALIBRATE.equals(intent.getAction())) {
+                startCalibration();
+            }
             return START_STICKY;
         } catch (Exception e) {
             handleCriticalServiceError("Service start failed", e);
             return START_NOT_STICKY;
+        } finally {
+            GuardTrace.end(traced);
         }
     }
 
@@ -117,12 +279,21 @@ public class MicGuardService extends Service {
     public void onDestroy() {
         try {
             logServiceEvent("Service destroy requested");
-            running = false;
+            GuardStateReport.unregister(stateSource);
             
-            stopMicrophoneProtection();
-            stopSecurityMonitoring();
+            stopConfigObserver();
+            stopCallYieldMonitor();
+            stopAccessMonitor();
+            stopNotifier();
+            stopPowerProfileMonitor();
+            shutdownWorkers();
             releaseWakeLock();
+            unregisterUnlockReceiver();
             cleanupResources();
+            snapshot.recordFlag(GuardSnapshot.FLAG_RUNNING, false, System.currentTimeMillis());
+            tickMetrics(false);
+            metrics.flush();
+            errorAggregator.drainAll();
             
             if (handler != null && powerDownRunnable != null) {
                 handler.removeCallbacks(powerDownRunnable);
@@ -140,6 +311,58 @@ public class MicGuardService extends Service {
         return null;
     }
 
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        try {
+            GuardStateReport.print(GuardStateReport.collect(this), writer);
+        } catch (Exception e) {
+            writer.println("error=" + e.getClass().getSimpleName());
+        }
+    }
+
+    private void collectState(Map<String, String> out) {
+        PowerProfile profile = engine.getProfile();
+        PowerProfileMonitor monitor = powerProfileMonitor;
+        CallYieldMonitor yieldMonitor = callYieldMonitor;
+        
+        out.put("service.uptime_ms", String.valueOf(System.currentTimeMillis() - serviceStartTime));
+        out.put("service.warm_start", String.valueOf(warmStart));
+        out.put("service.last_shutdown_ms", String.valueOf(lastShutdownDuration));
+        out.put("engine", "AudioRecord");
+        out.put("engine.audio_source", String.valueOf(engine.getAudioSource()));
+        out.put("calibration.running", String.valueOf(calibrating));
+        currentConfig().export(out);
+        out.put("power.profile", profile.name());
+        out.put("power.inputs", monitor != null ? monitor.describeInputs() : "");
+        engine.export(out);
+        out.put("mic.held", String.valueOf(micHeld));
+        out.put("mic.yielded", String.valueOf(engine.isYielded()));
+        out.put("mic.yield_reason", yieldMonitor != null && yieldMonitor.getYieldReason() != null
+            ? yieldMonitor.getYieldReason() : "");
+        out.put("wakelock.held", String.valueOf(wakeLock != null && wakeLock.isHeld()));
+        out.put("wakelock.acquisitions", String.valueOf(wakeLockAcquisitions));
+        out.put("wakelock.requested_ms", String.valueOf(wakeLockRequestedMs));
+        out.put("wakelock.allowed", String.valueOf(profile.wakeLocksAllowed));
+        out.put("security.enhanced", String.valueOf(isSecurityEnhanced));
+        out.put("security.compromised", String.valueOf(isSecurityCompromised));
+        out.put("security.violations", String.valueOf(securityViolations));
+        out.put("security.last_check_at", String.valueOf(lastSecurityCheck));
+        out.put("security.last_service_check_at", String.valueOf(snapshot.getSecurityCheckedAt()));
+        out.put("security.deferred", String.valueOf(securityCheckDeferred));
+        out.put("notification.blocked", String.valueOf(blockedAttempts));
+        WatchdogLog.export(GuardSettings.directory(this), out);
+        ProcessFootprint.export(this, out);
+        memoryManager.export("memory", out);
+        GuardNotifier activeNotifier = notifier;
+        if (activeNotifier != null) {
+            activeNotifier.export(out);
+        }
+        toggleLatency.export("latency.toggle", out);
+        tileToggleLatency.export("latency.tile", out);
+        reclaimLatency.export("latency.reclaim", out);
+        out.put("trace.enabled", String.valueOf(GuardTrace.isEnabled()));
+    }
+
     @Override
     public void onTaskRemoved(Intent rootIntent) {
         try {
@@ -148,6 +371,7 @@ public class MicGuardService extends Service {
             Intent restartServiceIntent = new Intent(getApplicationContext(), this.getClass());
             restartServiceIntent.setPackage(getPackageName());
             restartServiceIntent.putExtra("security_enhanced", isSecurityEnhanced);
+            restartServiceIntent.putExtra(EXTRA_REQUESTED_AT, SystemClock.elapsedRealtime());
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 getApplicationContext().startForegroundService(restartServiceIntent);
             } else {
@@ -159,9 +383,207 @@ public class MicGuardService extends Service {
         }
     }
 
+    private void openMetrics() {
+        try {
+            metrics = MetricsStore.open(new java.io.File(GuardSettings.directory(this), MetricsStore.FILE_NAME));
+        } catch (Exception e) {
+            metrics = MetricsStore.inMemory();
+            handleServiceError("Metrics store open failed", e);
+        }
+    }
+
+    private void startAccessMonitor() {
+        try {
+            AccessHistoryStore store = AccessHistoryStore.openForWriting(GuardSettings.directory(this),
+                System.currentTimeMillis());
+            accessMonitor = new AccessAttributionMonitor(this, audioManager, store,
+                new AccessAttributionMonitor.Listener() {
+                    @Override
+                    public void onForeignAccess() {
+                        if (micHeld && !engine.isYielded()) {
+                            blockedAttempts++;
+                            refreshNotification();
+                        }
+                    }
+                });
+            accessMonitor.start();
+        } catch (Exception e) {
+            accessMonitor = null;
+            handleServiceError("Access monitor start failed", e);
+        }
+    }
+
+    private void stopAccessMonitor() {
+        try {
+            if (accessMonitor != null) {
+                accessMonitor.stop();
+                accessMonitor = null;
+            }
+        } catch (Exception e) {
+            handleServiceError("Access monitor stop failed", e);
+        }
+    }
+
+    private void stopNotifier() {
+        try {
+            if (notifier != null) {
+                notifier.stop();
+                notifier = null;
+            }
+        } catch (Exception e) {
+            handleServiceError("Notifier stop failed", e);
+        }
+    }
+
+    private void refreshNotification() {
+        try {
+            GuardNotifier active = notifier;
+            if (active == null) {
+                return;
+            }
+            String title;
+            boolean yielded = engine.isYielded();
+            if (yielded) {
+                title = getString(R.string.notification_state_yielded);
+            } else if (!micHeld) {
+                title = getString(R.string.notification_state_reacquiring);
+            } else {
+                title = getString(engine.isHighPower() ? R.string.power_mode_aggressive : R.string.power_mode_normal);
+            }
+            active.update(title, getString(R.string.notification_blocked, blockedAttempts),
+                micHeld && !yielded ? heldSince : 0);
+        } catch (Exception e) {
+            handleServiceError("Notification refresh failed", e);
+        }
+    }
+
+    private void tickMetrics(boolean heldNow) {
+        try {
+            PowerProfileMonitor monitor = powerProfileMonitor;
+            metrics.tick(System.currentTimeMillis(), heldNow,
+                monitor != null ? monitor.getBatteryPercent() : -1, engine.getProfile().ordinal());
+        } catch (Exception e) {
+            handleServiceError("Metrics tick failed", e);
+        }
+    }
+
+    private void restoreSnapshot() {
+        try {
+            snapshot = GuardSnapshot.open(new java.io.File(GuardSettings.directory(this), SNAPSHOT_FILE));
+            if (!snapshot.isRestored()) {
+                return;
+            }
+            
+            if (snapshot.hasFlag(GuardSnapshot.FLAG_RUNNING)) {
+                previousInstanceLastSeen = snapshot.getSavedAt();
+            }
+            
+            engine.setTotalErrors(snapshot.getTotalErrors());
+            securityViolations = snapshot.getSecurityViolations();
+            isSecurityEnhanced = snapshot.hasFlag(GuardSnapshot.FLAG_SECURITY_ENHANCED);
+            
+            long age = System.currentTimeMillis() - snapshot.getSavedAt();
+            if (age < 0 || age > SNAPSHOT_FRESHNESS) {
+                logServiceEvent("Snapshot too old for warm start: " + age + "ms");
+                return;
+            }
+            
+            int rate = snapshot.getRate();
+            engine.restoreRate(rate);
+            warmStart = true;
+            logServiceEvent("Warm start from snapshot saved " + age + "ms ago"
+                + (snapshot.hasFlag(GuardSnapshot.FLAG_MIC_HELD) ? ", microphone was held" : ""));
+        } catch (Exception e) {
+            snapshot = GuardSnapshot.inMemory();
+            handleServiceError("Snapshot restore failed", e);
+        }
+    }
+
+    private void recordUnexpectedDeath(long lastSeenAt) {
+        try {
+            WatchdogLog.Entry entry = new WatchdogLog.Entry(System.currentTimeMillis(), WatchdogLog.KIND_RESTARTED,
+                lastSeenAt, "restarted without a clean shutdown");
+            WatchdogLog.append(GuardSettings.directory(this), entry);
+            logServiceEvent("Previous guard instance died unexpectedly, down for about " + entry.delay + "ms");
+        } catch (Exception e) {
+            handleServiceError("Unexpected death recording failed", e);
+        }
+    }
+
+    private boolean isUserUnlocked() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return true;
+        }
+        UserManager userManager = (UserManager) getSystemService(Context.USER_SERVICE);
+        return userManager == null || userManager.isUserUnlocked();
+    }
+
+    private void deferSecurityChecksUntilUnlock() {
+        try {
+            securityCheckDeferred = true;
+            GuardTrace.beginAsync("deferred_security", GuardTrace.COOKIE_DEFERRED_SECURITY);
+            logServiceEvent("Device locked, deferring security checks until unlock");
+            
+            if (unlockReceiver == null) {
+                unlockReceiver = new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context context, Intent intent) {
+                        logServiceEvent("User unlocked");
+                        stopSignal.wake();
+                    }
+                };
+                ContextCompat.registerReceiver(this, unlockReceiver,
+                    new IntentFilter(Intent.ACTION_USER_UNLOCKED), ContextCompat.RECEIVER_NOT_EXPORTED);
+            }
+        } catch (Exception e) {
+            handleServiceError("Security check deferral failed", e);
+        }
+    }
+
+    private void runDeferredSecurityChecks() {
+        if (!securityCheckDeferred || !isUserUnlocked()) {
+            return;
+        }
+        securityCheckDeferred = false;
+        logServiceEvent("Running security checks deferred from boot");
+        performServiceSecurityCheck();
+        if (isSecurityEnhanced) {
+            validateApplicationIntegrity();
+            checkForRootDetection();
+            validateSystemSecurity();
+        }
+        unregisterUnlockReceiver();
+        GuardTrace.endAsync("deferred_security", GuardTrace.COOKIE_DEFERRED_SECURITY);
+    }
+
+    private void unregisterUnlockReceiver() {
+        try {
+            if (unlockReceiver != null) {
+                unregisterReceiver(unlockReceiver);
+                unlockReceiver = null;
+            }
+        } catch (Exception e) {
+            handleServiceError("Unlock receiver unregistration failed", e);
+        }
+    }
+
+    private boolean isSecurityCheckFresh() {
+        if (!snapshot.isRestored()) {
+            return false;
+        }
+        long age = System.currentTimeMillis() - snapshot.getSecurityCheckedAt();
+        return age >= 0 && age < SECURITY_CHECK_FRESHNESS;
+    }
+
     private void createNotificationChannels() {
         try {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                if (notificationManager != null
+                    && notificationManager.getNotificationChannel(CHANNEL_ID) != null
+                    && notificationManager.getNotificationChannel(ALERT_CHANNEL_ID) != null) {
+                    return;
+                }
+                
                 NotificationChannel serviceChannel = new NotificationChannel(
                     CHANNEL_ID,
                     getString(R.string.notification_channel_name),
@@ -209,17 +631,22 @@ public class MicGuardService extends Service {
                     : PendingIntent.FLAG_UPDATE_CURRENT
             );
 
-            Notification notification = new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setContentTitle(getString(R.string.notification_title))
-                .setContentText(getString(R.string.notification_text))
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
                 .setSmallIcon(R.drawable.ic_shield)
                 .setContentIntent(pendingIntent)
                 .setOngoing(true)
                 .setSilent(true)
                 .setPriority(NotificationCompat.PRIORITY_MIN)
                 .setCategory(NotificationCompat.CATEGORY_SERVICE)
-                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
-                .build();
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+            
+            if (notifier != null) {
+                notifier.stop();
+            }
+            notifier = new GuardNotifier(this, notificationManager, builder, NOTIFICATION_ID);
+            notifier.start();
+            Notification notification = notifier.build(getString(R.string.notification_title),
+                getString(R.string.notification_text), 0);
 
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
                 startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_MICROPHONE);
@@ -260,8 +687,13 @@ public class MicGuardService extends Service {
 
     private void acquireTempWakeLock(long durationMs) {
         try {
+            if (!engine.getProfile().wakeLocksAllowed) {
+                return;
+            }
             if (wakeLock != null && !wakeLock.isHeld()) {
                 wakeLock.acquire(durationMs);
+                wakeLockAcquisitions++;
+                wakeLockRequestedMs += durationMs;
                 logServiceEvent("WakeLock acquired for " + durationMs + "ms");
             }
         } catch (Exception e) {
@@ -283,22 +715,28 @@ public class MicGuardService extends Service {
     private void startMicrophoneProtection() {
         try {
             running = true;
-            acquireTempWakeLock(STABILIZATION_DURATION);
+            stopSignal = new StopSignal();
+            final long generation = engine.start();
+            final StopSignal signal = stopSignal;
+            if (!bootStart) {
+                acquireTempWakeLock(currentConfig().stabilizationDuration);
+            }
+            if (engine.isHighPower()) {
+                schedulePowerDown();
+            }
+            
+            startCallYieldMonitor();
             
             micThread = new Thread(() -> {
                 try {
                     android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_AUDIO);
-                    
-                    if (!initializeRecorder(currentRate)) {
-                        handleMicError(-1);
-                        return;
-                    }
-                    
-                    micLoop();
+                    micLoop(signal);
                 } catch (Exception e) {
                     handleCriticalServiceError("Microphone thread failed", e);
+                } finally {
+                    engine.releaseRecorder(generation);
                 }
-            });
+            }, "SilentAgent-Mic");
             
             micThread.start();
             logServiceEvent("Microphone protection started");
@@ -307,58 +745,289 @@ public class MicGuardService extends Service {
         }
     }
 
-    private void stopMicrophoneProtection() {
+    private void startCallYieldMonitor() {
         try {
-            running = false;
-            
-            synchronized (recorderLock) {
-                if (recorder != null) {
-                    try {
-                        if (recorder.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING) {
-                            recorder.stop();
+            if (callYieldMonitor == null && audioManager != null) {
+                callYieldMonitor = new CallYieldMonitor(this, audioManager, new CallYieldMonitor.Listener() {
+                    @Override
+                    public void onYieldChanged(boolean yield, String reason) {
+                        if (yield) {
+                            yieldMicrophone(reason);
+                        } else {
+                            reclaimMicrophone(reason);
                         }
-                        recorder.release();
-                    } catch (Exception e) {
-                        logServiceEvent("Recorder cleanup failed");
-                    } finally {
-                        recorder = null;
                     }
+                });
+                callYieldMonitor.setAllowlist(currentConfig().yieldAllowlist);
+                callYieldMonitor.start();
+            }
+        } catch (Exception e) {
+            handleServiceError("Call yield monitor start failed", e);
+        }
+    }
+
+    private void stopCallYieldMonitor() {
+        try {
+            if (callYieldMonitor != null) {
+                callYieldMonitor.stop();
+                callYieldMonitor = null;
+            }
+        } catch (Exception e) {
+            handleServiceError("Call yield monitor stop failed", e);
+        }
+    }
+
+    private void yieldMicrophone(String reason) {
+        StopSignal activeCalibration = calibrationSignal;
+        if (calibrating && activeCalibration != null && !REASON_CALIBRATION.equals(reason)) {
+            logServiceEvent("Aborting calibration (" + reason + ")");
+            activeCalibration.stop();
+        }
+        if (!engine.yieldMicrophone()) {
+            return;
+        }
+        reclaimRequestedAt = 0;
+        metrics.addYield(System.currentTimeMillis());
+        GuardTrace.beginAsync("yielded", GuardTrace.COOKIE_YIELD);
+        logServiceEvent("Yielding microphone (" + reason + ")");
+        refreshNotification();
+        stopSignal.wake();
+    }
+
+    private void reclaimMicrophone(String reason) {
+        if (calibrating && !REASON_CALIBRATION.equals(reason)) {
+            return;
+        }
+        reclaimRequestedAt = SystemClock.elapsedRealtime();
+        if (!engine.reclaimMicrophone()) {
+            reclaimRequestedAt = 0;
+            return;
+        }
+        GuardTrace.endAsync("yielded", GuardTrace.COOKIE_YIELD);
+        logServiceEvent("Reclaiming microphone (" + reason + ")");
+        refreshNotification();
+        stopSignal.wake();
+    }
+
+    private GuardConfig currentConfig() {
+        GuardConfig current = config.get();
+        return current != null ? current : GuardConfig.DEFAULTS;
+    }
+
+    private void startConfigObserver() {
+        try {
+            configObserver = GuardConfig.watch(GuardSettings.directory(this), new Runnable() {
+                @Override
+                public void run() {
+                    reloadConfig("settings changed");
                 }
+            });
+        } catch (Exception e) {
+            handleServiceError("Config observer start failed", e);
+        }
+    }
+
+    private void stopConfigObserver() {
+        try {
+            if (configObserver != null) {
+                configObserver.stopWatching();
+                configObserver = null;
+            }
+        } catch (Exception e) {
+            handleServiceError("Config observer stop failed", e);
+        }
+    }
+
+    private synchronized void reloadConfig(String reason) {
+        try {
+            GuardConfig next = GuardConfig.from(GuardSettings.load(this));
+            GuardConfig previous = config.getAndSet(next);
+            if (previous == null) {
+                applyConfig(GuardConfig.DEFAULTS, next, true);
+                return;
+            }
+            String changes = next.diff(previous);
+            if (changes.isEmpty()) {
+                return;
+            }
+            applyConfig(previous, next, false);
+            logServiceEvent("Config reloaded (" + reason + "): " + changes);
+        } catch (Exception e) {
+            handleServiceError("Config reload failed", e);
+        }
+    }
+
+    private void applyConfig(GuardConfig previous, GuardConfig next, boolean initial) {
+        if (initial || previous.securityEnhanced != next.securityEnhanced) {
+            if (isSecurityEnhanced != next.securityEnhanced) {
+                isSecurityEnhanced = next.securityEnhanced;
+                snapshot.recordFlag(GuardSnapshot.FLAG_SECURITY_ENHANCED, isSecurityEnhanced, System.currentTimeMillis());
+                logServiceEvent("Security level set to: " + (isSecurityEnhanced ? "enhanced" : "standard"));
             }
+        }
+        if (initial || !next.sameTuning(previous)) {
+            engine.setTuning(next.tuning);
+        }
+        if (initial || previous.highRateLimit != next.highRateLimit || previous.highPowerSleep != next.highPowerSleep) {
+            engine.setHighPowerLimits(next.highRateLimit, next.highPowerSleep);
+        }
+        if (!initial && previous.securityCheckInterval != next.securityCheckInterval) {
+            stopSignal.wake();
+        }
+        CallYieldMonitor yieldMonitor = callYieldMonitor;
+        if (yieldMonitor != null && !next.yieldAllowlist.equals(previous.yieldAllowlist)) {
+            yieldMonitor.setAllowlist(next.yieldAllowlist);
+        }
+    }
+
+    private void startCalibration() {
+        try {
+            if (calibrating) {
+                logServiceEvent("Calibration already running");
+                return;
+            }
+            if (!GuardCalibration.isSupported()) {
+                logServiceEvent("Calibration is not supported below API " + Build.VERSION_CODES.Q);
+                broadcastCalibrationFinished(false);
+                return;
+            }
+            if (engine.isYielded()) {
+                logServiceEvent("Calibration refused while the microphone is yielded");
+                broadcastCalibrationFinished(false);
+                return;
+            }
+            calibrating = true;
+            final StopSignal signal = new StopSignal();
+            calibrationSignal = signal;
+            yieldMicrophone(REASON_CALIBRATION);
             
-            if (micThread != null) {
+            calibrationThread = new Thread(() -> {
+                boolean applied = false;
                 try {
-                    micThread.interrupt();
-                    micThread.join(1000);
-                } catch (InterruptedException e) {
-                    micThread.interrupt();
-                    Thread.currentThread().interrupt();
+                    android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_AUDIO);
+                    long releaseDeadline = SystemClock.elapsedRealtime() + CALIBRATION_RELEASE_TIMEOUT;
+                    while (engine.isHolding() && SystemClock.elapsedRealtime() < releaseDeadline) {
+                        if (signal.await(CALIBRATION_RELEASE_POLL)) {
+                            return;
+                        }
+                    }
+                    GuardCalibration calibration = new GuardCalibration(this, audioManager,
+                        new GuardCalibration.Listener() {
+                            @Override
+                            public void onCandidate(int index, int total, CaptureTuning candidate) {
+                                logServiceEvent("Calibrating " + (index + 1) + "/" + total + ": " + candidate.describe());
+                            }
+                        });
+                    List<GuardCalibration.Result> ranked = calibration.run(signal);
+                    if (!signal.isStopped()) {
+                        applied = applyCalibration(ranked);
+                    }
+                } catch (Exception e) {
+                    handleServiceError("Calibration failed", e);
+                } finally {
+                    CallYieldMonitor yieldMonitor = callYieldMonitor;
+                    boolean resume = running && (yieldMonitor == null || !yieldMonitor.isYielding());
+                    calibrating = false;
+                    calibrationSignal = null;
+                    if (resume) {
+                        reclaimMicrophone(REASON_CALIBRATION);
+                    }
+                    broadcastCalibrationFinished(applied);
                 }
+            }, "SilentAgent-Calibration");
+            
+            calibrationThread.start();
+            logServiceEvent("Calibration started, about " + GuardCalibration.estimatedDuration() / 1000 + "s");
+        } catch (Exception e) {
+            calibrating = false;
+            handleServiceError("Calibration start failed", e);
+        }
+    }
+
+    private boolean applyCalibration(List<GuardCalibration.Result> ranked) {
+        String report = GuardCalibration.report(ranked);
+        GuardSettings settings = GuardSettings.load(this).putString(GuardSettings.KEY_CALIBRATION_REPORT, report);
+        GuardCalibration.Result winner = ranked.isEmpty() ? null : ranked.get(0);
+        if (winner == null || !winner.isEffective()) {
+            settings.save();
+            logServiceEvent("Calibration found no configuration that keeps a live hold");
+            return false;
+        }
+        settings.putString(GuardSettings.KEY_CAPTURE_TUNING, winner.tuning.encode()).save();
+        reloadConfig(REASON_CALIBRATION);
+        logServiceEvent("Calibration applied " + winner.describe());
+        return true;
+    }
+
+    private void broadcastCalibrationFinished(boolean applied) {
+        try {
+            Intent finished = new Intent(ACTION_CALIBRATION_FINISHED);
+            finished.setPackage(getPackageName());
+            finished.putExtra(EXTRA_CALIBRATION_APPLIED, applied);
+            sendBroadcast(finished);
+        } catch (Exception e) {
+            handleServiceError("Calibration broadcast failed", e);
+        }
+    }
+
+    private void shutdownWorkers() {
+        long start = SystemClock.elapsedRealtime();
+        try {
+            running = false;
+            stopSignal.stop();
+            StopSignal activeCalibration = calibrationSignal;
+            if (activeCalibration != null) {
+                activeCalibration.stop();
+            }
+            engine.stop();
+            
+            if (!CaptureLoop.awaitWorkers(CaptureLoop.SHUTDOWN_BUDGET, micThread, securityThread, calibrationThread)) {
+                logServiceEvent("Workers still running after " + CaptureLoop.SHUTDOWN_BUDGET + "ms, interrupted");
             }
             
-            logServiceEvent("Microphone protection stopped");
+            if (micThread == null || !micThread.isAlive()) {
+                engine.releaseRecorder();
+            } else {
+                logServiceEvent("Microphone thread still draining, recorder release deferred to it");
+            }
         } catch (Exception e) {
-            handleServiceError("Microphone protection stop failed", e);
+            handleServiceError("Worker shutdown failed", e);
+        } finally {
+            lastShutdownDuration = SystemClock.elapsedRealtime() - start;
+            if (lastShutdownDuration > CaptureLoop.SHUTDOWN_BUDGET) {
+                logServiceEvent("Shutdown exceeded budget: " + lastShutdownDuration + "ms > "
+                    + CaptureLoop.SHUTDOWN_BUDGET + "ms");
+            } else {
+                logServiceEvent("Workers stopped in " + lastShutdownDuration + "ms");
+            }
         }
     }
 
     private void startSecurityMonitoring() {
         try {
+            final StopSignal signal = stopSignal;
             securityThread = new Thread(() -> {
-                while (running) {
+                while (running && !signal.isStopped()) {
+                    GuardTrace.refresh();
+                    boolean traced = GuardTrace.begin("securityPass");
                     try {
+                        runDeferredSecurityChecks();
                         performSecurityCheck();
                         checkMemoryUsage();
                         validateServiceIntegrity();
-                        Thread.sleep(SECURITY_CHECK_INTERVAL);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
+                        tickMetrics(micHeld);
+                        snapshot.recordHeartbeat(System.currentTimeMillis());
+                        errorAggregator.drain(SystemClock.elapsedRealtime());
                     } catch (Exception e) {
                         handleServiceError("Security monitoring failed", e);
+                    } finally {
+                        GuardTrace.end(traced);
+                    }
+                    if (signal.await(currentConfig().securityCheckInterval(engine.getProfile()))) {
+                        break;
                     }
                 }
-            });
+            }, "SilentAgent-Security");
             
             securityThread.start();
             logServiceEvent("Security monitoring started");
@@ -367,236 +1036,249 @@ public class MicGuardService extends Service {
         }
     }
 
-    private void stopSecurityMonitoring() {
-        try {
-            if (securityThread != null) {
-                securityThread.interrupt();
+    private void micLoop(StopSignal signal) {
+        CaptureLoop.run(signal, new CaptureLoop.Step() {
+            @Override
+            public long run() {
+                if (!running) {
+                    return -1;
+                }
+                boolean traced = GuardTrace.begin("micLoop.step");
                 try {
-                    securityThread.join(1000);
-                } catch (InterruptedException e) {
-                    securityThread.interrupt();
-                    Thread.currentThread().interrupt();
+                    return engine.step();
+                } finally {
+                    GuardTrace.end(traced);
                 }
             }
-            logServiceEvent("Security monitoring stopped");
-        } catch (Exception e) {
-            handleServiceError("Security monitoring stop failed", e);
-        }
+        });
     }
 
-    private boolean initializeRecorder(int sampleRate) {
-        synchronized (recorderLock) {
-            try {
-                if (recorder != null) {
-                    recorder.release();
-                    recorder = null;
-                }
-                
-                int bufferSize = AudioRecord.getMinBufferSize(
-                    sampleRate,
-                    AudioFormat.CHANNEL_IN_MONO,
-                    AudioFormat.ENCODING_PCM_16BIT
-                );
-                
-                if (bufferSize == AudioRecord.ERROR_BAD_VALUE || bufferSize == AudioRecord.ERROR) {
-                    return false;
-                }
-                
-                recorder = new AudioRecord(
-                    MediaRecorder.AudioSource.VOICE_RECOGNITION,
-                    sampleRate,
-                    AudioFormat.CHANNEL_IN_MONO,
-                    AudioFormat.ENCODING_PCM_16BIT,
-                    bufferSize
-                );
-                
-                if (recorder.getState() != AudioRecord.STATE_INITIALIZED) {
-                    recorder.release();
-                    recorder = null;
-                    return false;
-                }
-                
-                recorder.startRecording();
-                logServiceEvent("Recorder initialized at " + sampleRate + "Hz");
-                return true;
-                
-            } catch (Exception e) {
-                handleServiceError("Recorder initialization failed", e);
-                if (recorder != null) {
-                    recorder.release();
-                    recorder = null;
-                }
-                return false;
+    private void onRecorderHeld(int sampleRate, int sessionId) {
+        GuardTrace.counter("rate", sampleRate);
+        onMicHeld();
+    }
+
+    private void onMicRecovered(int consecutiveErrors) {
+        logServiceEvent("Microphone recovered after " + consecutiveErrors + " errors");
+        snapshot.recordErrors(0, engine.getTotalErrors(), System.currentTimeMillis());
+        GuardTrace.counter("consecutive_errors", 0);
+    }
+
+    private void onMicError(int errorCode, RetryPolicy.ErrorClass errorClass, int consecutiveErrors, int totalErrors,
+                            RetryPolicy.CircuitState circuitState, long delay) {
+        try {
+            long wallNow = System.currentTimeMillis();
+            snapshot.recordErrors(consecutiveErrors, totalErrors, wallNow);
+            metrics.addErrors(wallNow, 1);
+            GuardTrace.counter("consecutive_errors", consecutiveErrors);
+            GuardTrace.counter("total_errors", totalErrors);
+
+            logServiceEvent("Microphone error: " + errorCode + " " + errorClass
+                + " (consecutive: " + consecutiveErrors + ", circuit: " + circuitState + ", retry in " + delay + "ms)");
+
+            if (circuitState == RetryPolicy.CircuitState.OPEN) {
+                releaseWakeLock();
+                return;
             }
+
+            if (errorClass == RetryPolicy.ErrorClass.TRANSIENT || consecutiveErrors == 1) {
+                acquireTempWakeLock(currentConfig().recoveryWakeLockDuration);
+            }
+        } catch (Exception e) {
+            handleServiceError("Microphone error handling failed", e);
         }
     }
 
-    private void micLoop() {
-        while (running) {
-            synchronized (recorderLock) {
-                if (recorder == null || recorder.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) {
-                    if (!initializeRecorder(currentRate)) {
-                        handleMicError(-1);
-                        break;
-                    }
-                    continue;
-                }
-                
-                int read = recorder.read(audioBuffer, 0, audioBuffer.length);
-                
-                if (read < 0) {
-                    handleMicError(read);
-                    break;
-                }
-                
-                consecutiveErrors = 0;
-                
-                if (isSecurityCompromised) {
-                    zeroAudioBuffer();
-                }
+    private void onMicHeld() {
+        try {
+            long wallNow = System.currentTimeMillis();
+            snapshot.recordRate(engine.getCurrentRate(), engine.isHighPower(), wallNow);
+            snapshot.recordFlag(GuardSnapshot.FLAG_MIC_HELD, true, wallNow);
+            
+            if (bootStart) {
+                bootStart = false;
+                long bootToHeld = SystemClock.elapsedRealtime();
+                snapshot.recordBootToHeld(bootToHeld, wallNow);
+                logServiceEvent("Microphone held " + bootToHeld + "ms after boot");
+            }
+            
+            long reclaimAt = reclaimRequestedAt;
+            if (reclaimAt > 0) {
+                reclaimRequestedAt = 0;
+                long reclaim = SystemClock.elapsedRealtime() - reclaimAt;
+                reclaimLatency.record(reclaim);
+                logServiceEvent("Microphone reclaimed in " + reclaim + "ms"
+                    + (reclaim > RECLAIM_BUDGET ? " (over " + RECLAIM_BUDGET + "ms budget)" : "")
+                    + " (" + reclaimLatency.summary() + ")");
+            }
+            
+            long requestedAt = pendingRequestAt;
+            long latency = -1;
+            if (requestedAt > 0) {
+                pendingRequestAt = 0;
+                GuardTrace.endAsync("toggle_to_held", GuardTrace.COOKIE_TOGGLE);
+                latency = SystemClock.elapsedRealtime() - requestedAt;
+                LatencyHistogram histogram = TOGGLE_SOURCE_TILE.equals(pendingRequestSource)
+                    ? tileToggleLatency : toggleLatency;
+                histogram.record(latency);
+                logServiceEvent("Microphone held " + latency + "ms after " + pendingRequestSource
+                    + " toggle (" + histogram.summary() + ")");
             }
             
-            try {
-                int sleepTime = isHighPowerMode ? HIGH_POWER_SLEEP : LOW_POWER_SLEEP;
-                Thread.sleep(sleepTime);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            } catch (Exception e) {
-                handleServiceError("MicLoop sleep failed", e);
+            tickMetrics(true);
+            if (!micHeld) {
+                heldSince = wallNow;
             }
+            if (!micHeld || latency >= 0) {
+                micHeld = true;
+                broadcastState(true, latency);
+            }
+            refreshNotification();
+        } catch (Exception e) {
+            handleServiceError("Mic held signal failed", e);
         }
     }
 
-    private void zeroAudioBuffer() {
+    private void onMicReleased() {
+        if (micHeld) {
+            micHeld = false;
+            snapshot.recordFlag(GuardSnapshot.FLAG_MIC_HELD, false, System.currentTimeMillis());
+            tickMetrics(false);
+            broadcastState(false, -1);
+            refreshNotification();
+        }
+    }
+
+    private void broadcastState(boolean held, long latency) {
         try {
-            java.util.Arrays.fill(audioBuffer, (byte) 0);
+            Intent state = new Intent(ACTION_STATE_CHANGED);
+            state.setPackage(getPackageName());
+            state.putExtra(EXTRA_MIC_HELD, held);
+            if (latency >= 0) {
+                state.putExtra(EXTRA_TOGGLE_LATENCY, latency);
+            }
+            sendBroadcast(state);
+            GuardTileService.requestUpdate(this);
         } catch (Exception e) {
-            logServiceEvent("Audio buffer zeroing failed");
+            handleServiceError("State broadcast failed", e);
         }
     }
 
-    private void handleMicError(int errorCode) {
+    private void onCaptureModeChanged(boolean highPower) {
         try {
-            consecutiveErrors++;
-            totalErrors++;
-
-            logServiceEvent("Microphone error: " + errorCode + " (consecutive: " + consecutiveErrors + ")");
-
-            if (consecutiveErrors == 1) {
-                acquireTempWakeLock(CRITICAL_WAKELOCK_DURATION);
+            if (highPower) {
+                schedulePowerDown();
+            } else {
+                stopSignal.wake();
+                releaseWakeLock();
             }
+            traceMode();
+            refreshNotification();
+        } catch (Exception e) {
+            handleServiceError("Capture mode change failed", e);
+        }
+    }
 
-            if (consecutiveErrors >= MAX_CONSECUTIVE_ERRORS) {
-                switchToHighPowerMode();
-                acquireTempWakeLock(CRITICAL_WAKELOCK_DURATION);
-
-                try {
-                    Thread.sleep(RETRY_DELAY);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+    private void startPowerProfileMonitor() {
+        try {
+            powerProfileMonitor = new PowerProfileMonitor(this, new PowerProfileMonitor.Listener() {
+                @Override
+                public void onProfileChanged(PowerProfile profile, String reason) {
+                    applyPowerProfile(profile, reason);
                 }
+            });
+            powerProfileMonitor.start();
+        } catch (Exception e) {
+            handleServiceError("Power profile monitor start failed", e);
+        }
+    }
 
-                consecutiveErrors = 0;
+    private void stopPowerProfileMonitor() {
+        try {
+            if (powerProfileMonitor != null) {
+                powerProfileMonitor.stop();
+                powerProfileMonitor = null;
             }
         } catch (Exception e) {
-            handleServiceError("Microphone error handling failed", e);
+            handleServiceError("Power profile monitor stop failed", e);
         }
     }
 
-    private void switchToHighPowerMode() {
+    private void applyPowerProfile(PowerProfile profile, String reason) {
         try {
-            if (isHighPowerMode) return;
-            
-            isHighPowerMode = true;
-            currentRate = HIGH_RATE;
-            
-            logServiceEvent("Switching to high power mode");
-            
-            synchronized (recorderLock) {
-                if (recorder != null) {
-                    try {
-                        if (recorder.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING) {
-                            recorder.stop();
-                        }
-                        recorder.release();
-                    } catch (Exception e) {
-                        logServiceEvent("Recorder stop failed during mode switch");
-                    }
-                    recorder = null;
-                }
+            PowerProfile previous = engine.getProfile();
+            if (!engine.applyProfile(profile)) {
+                return;
             }
+            GuardTrace.counter("power_profile", profile.ordinal());
+            logServiceEvent("Power profile " + previous + " -> " + profile + " (" + reason + ")");
             
-            if (!initializeRecorder(HIGH_RATE)) {
-                initializeRecorder(LOW_RATE);
-                currentRate = LOW_RATE;
+            if (!profile.wakeLocksAllowed) {
+                releaseWakeLock();
             }
             
-            if (powerDownRunnable != null) {
+            if (!profile.highPowerAllowed && powerDownRunnable != null) {
                 handler.removeCallbacks(powerDownRunnable);
             }
-            
-            powerDownRunnable = new Runnable() {
-                @Override
-                public void run() {
-                    switchToLowPowerMode();
-                }
-            };
-            
-            handler.postDelayed(powerDownRunnable, STABILIZATION_DURATION);
+            stopSignal.wake();
         } catch (Exception e) {
-            handleServiceError("High power mode switch failed", e);
+            handleServiceError("Power profile change failed", e);
         }
     }
 
+    private void schedulePowerDown() {
+        if (powerDownRunnable != null) {
+            handler.removeCallbacks(powerDownRunnable);
+        }
+        
+        powerDownRunnable = new Runnable() {
+            @Override
+            public void run() {
+                switchToLowPowerMode();
+            }
+        };
+        
+        handler.postDelayed(powerDownRunnable, currentConfig().stabilizationDuration);
+    }
+
     private void switchToLowPowerMode() {
+        boolean traced = GuardTrace.begin("switchToLowPowerMode");
         try {
-            if (!isHighPowerMode) return;
-            
-            isHighPowerMode = false;
-            currentRate = LOW_RATE;
-            
-            logServiceEvent("Switching to low power mode");
-            
-            synchronized (recorderLock) {
-                if (recorder != null) {
-                    try {
-                        if (recorder.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING) {
-                            recorder.stop();
-                        }
-                        recorder.release();
-                    } catch (Exception e) {
-                        logServiceEvent("Recorder stop failed during mode switch");
-                    }
-                    recorder = null;
-                }
-            }
-            
-            initializeRecorder(LOW_RATE);
-            releaseWakeLock();
+            engine.switchToLowPower();
         } catch (Exception e) {
             handleServiceError("Low power mode switch failed", e);
+        } finally {
+            GuardTrace.end(traced);
         }
     }
 
+    private void traceMode() {
+        GuardTrace.counter("rate", engine.getCurrentRate());
+        GuardTrace.counter("high_power", engine.isHighPower() ? 1 : 0);
+    }
+
     private void sendHighPriorityNotification() {
         logServiceEvent("High priority notification suppressed");
     }
 
     private void performServiceSecurityCheck() {
+        boolean traced = GuardTrace.begin("performServiceSecurityCheck");
         try {
             validateServiceEnvironment();
             checkForTampering();
             validateAudioPermissions();
+            snapshot.recordSecurityCheck(securityViolations, System.currentTimeMillis());
         } catch (Exception e) {
             handleServiceError("Service security check failed", e);
+        } finally {
+            GuardTrace.end(traced);
         }
     }
 
     private void performSecurityCheck() {
         try {
             long currentTime = System.currentTimeMillis();
-            if (currentTime - lastSecurityCheck < SECURITY_CHECK_INTERVAL) {
+            if (currentTime - lastSecurityCheck < currentConfig().securityCheckInterval(engine.getProfile())) {
                 return;
             }
             
@@ -604,6 +1286,7 @@ public class MicGuardService extends Service {
             checkForInterference();
             validateAudioHardware();
             lastSecurityCheck = currentTime;
+            snapshot.recordSecurityCheck(securityViolations, currentTime);
             
         } catch (Exception e) {
             handleServiceError("Security check failed", e);
@@ -647,7 +1330,7 @@ public class MicGuardService extends Service {
 
     private void validateServiceIntegrity() {
         try {
-            if (recorder != null && recorder.getState() != AudioRecord.STATE_INITIALIZED) {
+            if ("uninitialized".equals(engine.describeRecorder())) {
                 logServiceEvent("Recorder integrity compromised");
             }
         } catch (Exception e) {
@@ -662,6 +1345,10 @@ public class MicGuardService extends Service {
                 if (mode != AudioManager.MODE_NORMAL) {
                     logServiceEvent("Audio mode changed: " + mode);
                 }
+                CallYieldMonitor yieldMonitor = callYieldMonitor;
+                if (yieldMonitor != null) {
+                    yieldMonitor.requestEvaluate();
+                }
             }
         } catch (Exception e) {
             handleServiceError("Interference check failed", e);
@@ -674,7 +1361,9 @@ public class MicGuardService extends Service {
                 if (!audioManager.isWiredHeadsetOn() && !audioManager.isBluetoothA2dpOn()) {
                 logServiceEvent("No audio output devices detected");
                 isSecurityCompromised = true;
+                engine.setZeroing(true);
                 securityViolations++;
+                metrics.addSecurityViolations(System.currentTimeMillis(), 1);
                 }
             }
         } catch (Exception e) {
@@ -684,25 +1373,67 @@ public class MicGuardService extends Service {
 
     private void checkMemoryUsage() {
         try {
-            Runtime runtime = Runtime.getRuntime();
-            long usedMemory = runtime.totalMemory() - runtime.freeMemory();
-            
-            if (usedMemory > MAX_MEMORY_USAGE) {
-                logServiceEvent("High memory usage: " + (usedMemory / 1024 / 1024) + "MB");
-                
-                if (usedMemory > MAX_MEMORY_USAGE * 1.5) {
-                    logServiceEvent("Critical memory usage, forcing cleanup");
-                    System.gc();
-                }
-            }
+            memoryManager.sample(SystemClock.elapsedRealtime());
         } catch (Exception e) {
             handleServiceError("Memory usage check failed", e);
         }
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        try {
+            memoryManager.onTrimMemory(level);
+        } catch (Exception e) {
+            handleServiceError("Trim memory handling failed", e);
+        }
+    }
+
+    private void registerMemoryShedders() {
+        memoryManager.register(MemoryManager.TIER_CACHE, "access_packages", new MemoryManager.Shedder() {
+            @Override
+            public long shed() {
+                AccessAttributionMonitor monitor = accessMonitor;
+                return monitor != null ? monitor.trimCaches() : 0;
+            }
+        });
+        memoryManager.register(MemoryManager.TIER_CACHE, "metrics_pages", new MemoryManager.Shedder() {
+            @Override
+            public long shed() {
+                metrics.flush();
+                return 0;
+            }
+        });
+        memoryManager.register(MemoryManager.TIER_BUFFER, "high_power_buffer", new MemoryManager.Shedder() {
+            @Override
+            public long shed() {
+                if (!engine.isHighPower() || handler == null) {
+                    return 0;
+                }
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        switchToLowPowerMode();
+                    }
+                });
+                return engine.getPreparedBufferSize() / 2;
+            }
+        });
+        memoryManager.register(MemoryManager.TIER_OPTIONAL, "error_aggregator", new MemoryManager.Shedder() {
+            @Override
+            public long shed() {
+                errorAggregator.drainAll();
+                return 0;
+            }
+        });
+    }
+
     private void validateStartConditions() {
         try {
-            performServiceSecurityCheck();
+            boolean securityCheckFresh = isSecurityCheckFresh() || securityCheckDeferred;
+            if (!securityCheckFresh) {
+                performServiceSecurityCheck();
+            }
             
             if (checkSelfPermission(Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED) {
                 throw new SecurityException("Audio permission required");
@@ -713,7 +1444,7 @@ public class MicGuardService extends Service {
                 throw new SecurityException("Notification permission required");
             }
             
-            if (isSecurityEnhanced) {
+            if (isSecurityEnhanced && !securityCheckFresh) {
                 logServiceEvent("Enhanced security mode activated - enforcing strict validation");
                 validateApplicationIntegrity();
                 checkForRootDetection();
@@ -780,13 +1511,8 @@ public class MicGuardService extends Service {
 
     private void cleanupResources() {
         try {
-            if (audioBuffer != null) {
-                audioBuffer = null;
-            }
-            
-            if (recorder != null) {
-                recorder.release();
-                recorder = null;
+            if (micThread == null || !micThread.isAlive()) {
+                engine.releaseRecorder();
             }
             
             if (micThread != null) {
@@ -813,6 +1539,9 @@ public class MicGuardService extends Service {
 
     private void handleServiceError(String message, Exception e) {
         try {
+            if (!errorAggregator.record(message, e, SystemClock.elapsedRealtime())) {
+                return;
+            }
             logServiceEvent("ERROR: " + message);
             android.util.Log.e("SilentAgent_Service", message, e);
         } catch (Exception ex) {
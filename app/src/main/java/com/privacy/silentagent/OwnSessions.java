@@ -0,0 +1,27 @@
+package com.privacy.silentagent;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class OwnSessions {
+
+    private static final Set<Integer> SESSIONS = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    private OwnSessions() {
+    }
+
+    static void register(int sessionId) {
+        if (sessionId > 0) {
+            SESSIONS.add(sessionId);
+        }
+    }
+
+    static void unregister(int sessionId) {
+        SESSIONS.remove(sessionId);
+    }
+
+    static boolean contains(int sessionId) {
+        return SESSIONS.contains(sessionId);
+    }
+}
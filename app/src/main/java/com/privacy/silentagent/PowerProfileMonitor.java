@@ -0,0 +1,115 @@
+package com.privacy.silentagent;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+import androidx.core.content.ContextCompat;
+import com.privacy.silentagent.core.PowerProfile;
+
+final class PowerProfileMonitor {
+
+    interface Listener {
+        void onProfileChanged(PowerProfile profile, String reason);
+    }
+
+    private final Context context;
+    private final PowerManager powerManager;
+    private final Listener listener;
+
+    private BroadcastReceiver receiver;
+    private Object thermalListener;
+    private int batteryPercent = -1;
+    private boolean charging = false;
+    private int thermalStatus = PowerProfile.THERMAL_STATUS_NONE;
+    private PowerProfile profile = PowerProfile.BALANCED;
+
+    PowerProfileMonitor(Context context, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        this.listener = listener;
+    }
+
+    void start() {
+        receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+                    updateBattery(intent);
+                }
+                evaluate();
+            }
+        };
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        Intent sticky = ContextCompat.registerReceiver(context, receiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+        if (sticky != null) {
+            updateBattery(sticky);
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && powerManager != null) {
+            thermalStatus = powerManager.getCurrentThermalStatus();
+            PowerManager.OnThermalStatusChangedListener thermal = new PowerManager.OnThermalStatusChangedListener() {
+                @Override
+                public void onThermalStatusChanged(int status) {
+                    thermalStatus = status;
+                    evaluate();
+                }
+            };
+            powerManager.addThermalStatusListener(context.getMainExecutor(), thermal);
+            thermalListener = thermal;
+        }
+        evaluate();
+    }
+
+    void stop() {
+        if (receiver != null) {
+            context.unregisterReceiver(receiver);
+            receiver = null;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && thermalListener != null && powerManager != null) {
+            powerManager.removeThermalStatusListener((PowerManager.OnThermalStatusChangedListener) thermalListener);
+            thermalListener = null;
+        }
+    }
+
+    PowerProfile getProfile() {
+        return profile;
+    }
+
+    int getBatteryPercent() {
+        return batteryPercent;
+    }
+
+    String describeInputs() {
+        return "battery=" + batteryPercent + "%"
+            + " charging=" + charging
+            + " powerSave=" + isPowerSaveMode()
+            + " thermal=" + thermalStatus;
+    }
+
+    private void updateBattery(Intent intent) {
+        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        batteryPercent = level >= 0 && scale > 0 ? (level * 100) / scale : -1;
+        int plugged = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0);
+        charging = plugged != 0;
+    }
+
+    private boolean isPowerSaveMode() {
+        return powerManager != null && powerManager.isPowerSaveMode();
+    }
+
+    private void evaluate() {
+        PowerProfile selected = PowerProfile.select(batteryPercent, charging, isPowerSaveMode(), thermalStatus);
+        if (selected != profile) {
+            profile = selected;
+            listener.onProfileChanged(selected, describeInputs());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.privacy.silentagent;
+
+import android.app.ActivityManager;
+import android.app.ApplicationExitInfo;
+import android.content.Context;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Process;
+import java.util.List;
+import java.util.Map;
+
+final class ProcessFootprint {
+
+    static final String GUARD_PROCESS_SUFFIX = ":guard";
+
+    private static final int EXIT_HISTORY = 32;
+
+    private ProcessFootprint() {
+    }
+
+    static String describe() {
+        Runtime runtime = Runtime.getRuntime();
+        return "pid " + Process.myPid()
+            + ", classes " + Debug.getLoadedClassCount()
+            + ", java heap " + (runtime.totalMemory() - runtime.freeMemory()) / 1024 + "KB"
+            + ", native heap " + Debug.getNativeHeapAllocatedSize() / 1024 + "KB"
+            + ", pss " + Debug.getPss() + "KB";
+    }
+
+    static void export(Context context, Map<String, String> out) {
+        Runtime runtime = Runtime.getRuntime();
+        out.put("process.pid", String.valueOf(Process.myPid()));
+        out.put("process.classes", String.valueOf(Debug.getLoadedClassCount()));
+        out.put("process.java_heap_kb", String.valueOf((runtime.totalMemory() - runtime.freeMemory()) / 1024));
+        out.put("process.native_heap_kb", String.valueOf(Debug.getNativeHeapAllocatedSize() / 1024));
+
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null) {
+            return;
+        }
+        List<ActivityManager.RunningAppProcessInfo> processes = activityManager.getRunningAppProcesses();
+        if (processes != null && !processes.isEmpty()) {
+            int[] pids = new int[processes.size()];
+            for (int i = 0; i < pids.length; i++) {
+                pids[i] = processes.get(i).pid;
+            }
+            Debug.MemoryInfo[] memory = activityManager.getProcessMemoryInfo(pids);
+            for (int i = 0; i < pids.length && memory != null && i < memory.length; i++) {
+                ActivityManager.RunningAppProcessInfo info = processes.get(i);
+                String name = label(context, info.processName);
+                out.put("process." + name + ".pid", String.valueOf(info.pid));
+                out.put("process." + name + ".importance", String.valueOf(info.importance));
+                out.put("process." + name + ".pss_kb", String.valueOf(memory[i].getTotalPss()));
+                if (info.pid == Process.myPid()) {
+                    out.put("process.name", name);
+                }
+            }
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            List<ApplicationExitInfo> exits =
+                activityManager.getHistoricalProcessExitReasons(context.getPackageName(), 0, EXIT_HISTORY);
+            int uiKills = 0;
+            int guardKills = 0;
+            for (ApplicationExitInfo exit : exits) {
+                if (exit.getReason() != ApplicationExitInfo.REASON_LOW_MEMORY) {
+                    continue;
+                }
+                if (isGuardProcess(exit.getProcessName())) {
+                    guardKills++;
+                } else {
+                    uiKills++;
+                }
+            }
+            out.put("process.lmk_kills.ui", String.valueOf(uiKills));
+            out.put("process.lmk_kills.guard", String.valueOf(guardKills));
+            out.put("process.lmk_kills.window", String.valueOf(exits.size()));
+        }
+    }
+
+    static boolean isGuardProcess(String processName) {
+        return processName != null && processName.endsWith(GUARD_PROCESS_SUFFIX);
+    }
+
+    private static String label(Context context, String processName) {
+        return isGuardProcess(processName) ? "guard" : context.getPackageName().equals(processName) ? "ui" : processName;
+    }
+}
@@ -0,0 +1,240 @@
+package com.privacy.silentagent;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+final class ProtectionSchedule {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int LOOKAHEAD_DAYS = 8;
+
+    static final class WeeklyWindow {
+        final int dayMask;
+        final int startMinute;
+        final int endMinute;
+
+        WeeklyWindow(int dayMask, int startMinute, int endMinute) {
+            this.dayMask = dayMask & 0x7f;
+            this.startMinute = clampMinute(startMinute);
+            this.endMinute = clampMinute(endMinute);
+        }
+
+        boolean coversDay(int mondayBasedDay) {
+            return (dayMask & (1 << mondayBasedDay)) != 0;
+        }
+
+        boolean isOvernight() {
+            return endMinute <= startMinute;
+        }
+    }
+
+    static final class OneOffWindow {
+        final long startMillis;
+        final long endMillis;
+
+        OneOffWindow(long startMillis, long endMillis) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+
+    private final List<WeeklyWindow> weeklyWindows = new ArrayList<>();
+    private final List<OneOffWindow> oneOffWindows = new ArrayList<>();
+
+    static ProtectionSchedule parse(String encoded) {
+        ProtectionSchedule schedule = new ProtectionSchedule();
+        if (encoded == null) {
+            return schedule;
+        }
+        for (String entry : encoded.split(";")) {
+            String[] parts = entry.trim().split(":");
+            try {
+                if (parts.length == 4 && "W".equals(parts[0])) {
+                    schedule.addWeekly(new WeeklyWindow(
+                        Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3])));
+                } else if (parts.length == 3 && "O".equals(parts[0])) {
+                    schedule.addOneOff(new OneOffWindow(Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+                }
+            } catch (NumberFormatException e) {
+                android.util.Log.w("SilentAgent_Schedule", "Skipping malformed schedule entry: " + entry);
+            }
+        }
+        return schedule;
+    }
+
+    String encode() {
+        StringBuilder builder = new StringBuilder();
+        for (WeeklyWindow window : weeklyWindows) {
+            if (builder.length() > 0) {
+                builder.append(';');
+            }
+            builder.append("W:").append(window.dayMask)
+                .append(':').append(window.startMinute)
+                .append(':').append(window.endMinute);
+        }
+        for (OneOffWindow window : oneOffWindows) {
+            if (builder.length() > 0) {
+                builder.append(';');
+            }
+            builder.append("O:").append(window.startMillis).append(':').append(window.endMillis);
+        }
+        return builder.toString();
+    }
+
+    static OneOffWindow nextOneOff(long now, TimeZone timeZone, int startMinute, int endMinute) {
+        startMinute = clampMinute(startMinute);
+        endMinute = clampMinute(endMinute);
+        Calendar day = Calendar.getInstance(timeZone);
+        day.setTimeInMillis(now);
+        day.set(Calendar.HOUR_OF_DAY, 0);
+        day.set(Calendar.MINUTE, 0);
+        day.set(Calendar.SECOND, 0);
+        day.set(Calendar.MILLISECOND, 0);
+        int length = endMinute > startMinute ? endMinute - startMinute : endMinute - startMinute + MINUTES_PER_DAY;
+
+        long end = atMinute(day, startMinute + length);
+        if (end <= now) {
+            day.add(Calendar.DAY_OF_YEAR, 1);
+            end = atMinute(day, startMinute + length);
+        }
+        return new OneOffWindow(atMinute(day, startMinute), end);
+    }
+
+    void addWeekly(WeeklyWindow window) {
+        if (window.dayMask != 0 && window.startMinute != window.endMinute) {
+            weeklyWindows.add(window);
+        }
+    }
+
+    void addOneOff(OneOffWindow window) {
+        if (window.endMillis > window.startMillis) {
+            oneOffWindows.add(window);
+        }
+    }
+
+    void pruneExpired(long now) {
+        for (int i = oneOffWindows.size() - 1; i >= 0; i--) {
+            if (oneOffWindows.get(i).endMillis <= now) {
+                oneOffWindows.remove(i);
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return weeklyWindows.isEmpty() && oneOffWindows.isEmpty();
+    }
+
+    List<WeeklyWindow> getWeeklyWindows() {
+        return Collections.unmodifiableList(weeklyWindows);
+    }
+
+    boolean isActive(long now, TimeZone timeZone) {
+        for (OneOffWindow window : oneOffWindows) {
+            if (now >= window.startMillis && now < window.endMillis) {
+                return true;
+            }
+        }
+        if (weeklyWindows.isEmpty()) {
+            return false;
+        }
+
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTimeInMillis(now);
+        int day = mondayBasedDay(calendar);
+        int previousDay = (day + 6) % 7;
+        int minute = calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+
+        for (WeeklyWindow window : weeklyWindows) {
+            if (window.isOvernight()) {
+                if ((window.coversDay(day) && minute >= window.startMinute)
+                    || (window.coversDay(previousDay) && minute < window.endMinute)) {
+                    return true;
+                }
+            } else if (window.coversDay(day) && minute >= window.startMinute && minute < window.endMinute) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long nextTransition(long now, TimeZone timeZone) {
+        List<Long> boundaries = new ArrayList<>();
+        for (OneOffWindow window : oneOffWindows) {
+            boundaries.add(window.startMillis);
+            boundaries.add(window.endMillis);
+        }
+
+        if (!weeklyWindows.isEmpty()) {
+            Calendar day = Calendar.getInstance(timeZone);
+            day.setTimeInMillis(now);
+            day.set(Calendar.HOUR_OF_DAY, 0);
+            day.set(Calendar.MINUTE, 0);
+            day.set(Calendar.SECOND, 0);
+            day.set(Calendar.MILLISECOND, 0);
+            day.add(Calendar.DAY_OF_YEAR, -1);
+
+            for (int i = 0; i <= LOOKAHEAD_DAYS; i++) {
+                int weekday = mondayBasedDay(day);
+                for (WeeklyWindow window : weeklyWindows) {
+                    if (!window.coversDay(weekday)) {
+                        continue;
+                    }
+                    boundaries.add(atMinute(day, window.startMinute));
+                    boundaries.add(atMinute(day, window.endMinute + (window.isOvernight() ? MINUTES_PER_DAY : 0)));
+                }
+                day.add(Calendar.DAY_OF_YEAR, 1);
+            }
+        }
+
+        Collections.sort(boundaries);
+        boolean active = isActive(now, timeZone);
+        for (long boundary : boundaries) {
+            if (boundary > now && isActive(boundary, timeZone) != active) {
+                return boundary;
+            }
+        }
+        return -1;
+    }
+
+    private static long atMinute(Calendar midnight, int minuteOfDay) {
+        Calendar calendar = (Calendar) midnight.clone();
+        calendar.add(Calendar.DAY_OF_YEAR, minuteOfDay / MINUTES_PER_DAY);
+        calendar.set(Calendar.HOUR_OF_DAY, (minuteOfDay % MINUTES_PER_DAY) / 60);
+        calendar.set(Calendar.MINUTE, minuteOfDay % 60);
+        long millis = calendar.getTimeInMillis();
+        if (calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE) != minuteOfDay % MINUTES_PER_DAY) {
+            return gapEnd(calendar.getTimeZone(), millis);
+        }
+        return millis;
+    }
+
+    private static long gapEnd(TimeZone timeZone, long shifted) {
+        int after = timeZone.getOffset(shifted);
+        int gap = after - timeZone.getOffset(shifted - MINUTES_PER_DAY * 60000L);
+        if (gap <= 0) {
+            return shifted;
+        }
+        long low = shifted - gap;
+        long high = shifted;
+        while (high - low > 1) {
+            long middle = (low + high) >>> 1;
+            if (timeZone.getOffset(middle) == after) {
+                high = middle;
+            } else {
+                low = middle;
+            }
+        }
+        return high;
+    }
+
+    private static int mondayBasedDay(Calendar calendar) {
+        return (calendar.get(Calendar.DAY_OF_WEEK) + 5) % 7;
+    }
+
+    private static int clampMinute(int minute) {
+        return Math.max(0, Math.min(MINUTES_PER_DAY - 1, minute));
+    }
+}
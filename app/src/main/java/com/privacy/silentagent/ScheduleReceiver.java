@@ -0,0 +1,105 @@
+package com.privacy.silentagent;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import java.util.TimeZone;
+
+public class ScheduleReceiver extends BroadcastReceiver {
+
+    static final String ACTION_SCHEDULE_TRANSITION = "com.privacy.silentagent.SCHEDULE_TRANSITION";
+
+    private static final int REQUEST_CODE = 2001;
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        try {
+            android.util.Log.d("SilentAgent_Schedule", "Reconciling schedule (" + intent.getAction() + ")");
+            reconcile(context);
+        } catch (Exception e) {
+            android.util.Log.e("SilentAgent_Schedule", "Schedule reconcile failed", e);
+        }
+    }
+
+    static void reconcile(Context context) {
+        GuardSettings settings = GuardSettings.load(context);
+        ProtectionSchedule schedule = ProtectionSchedule.parse(settings.getString(GuardSettings.KEY_SCHEDULE, ""));
+        long now = System.currentTimeMillis();
+        TimeZone timeZone = TimeZone.getDefault();
+        schedule.pruneExpired(now);
+        settings.putString(GuardSettings.KEY_SCHEDULE, schedule.encode());
+
+        boolean lastApplied = settings.getBoolean(GuardSettings.KEY_SCHEDULE_ACTIVE, false);
+        if (schedule.isEmpty()) {
+            cancelAlarm(context);
+            settings.putLong(GuardSettings.KEY_SCHEDULE_NEXT, -1)
+                .putBoolean(GuardSettings.KEY_SCHEDULE_ACTIVE, false)
+                .putLong(GuardSettings.KEY_SCHEDULE_DISMISSED_UNTIL, 0)
+                .save();
+            if (lastApplied) {
+                applyTransition(context, settings, now);
+            }
+            return;
+        }
+
+        boolean active = schedule.isActive(now, timeZone);
+        if (active != lastApplied) {
+            settings.putBoolean(GuardSettings.KEY_SCHEDULE_ACTIVE, active);
+            applyTransition(context, settings, now);
+        }
+
+        long next = schedule.nextTransition(now, timeZone);
+        settings.putLong(GuardSettings.KEY_SCHEDULE_NEXT, next).save();
+        if (next > 0) {
+            scheduleAlarm(context, next);
+        } else {
+            cancelAlarm(context);
+        }
+    }
+
+    private static void applyTransition(Context context, GuardSettings settings, long now) {
+        Intent serviceIntent = new Intent(context, MicGuardService.class);
+        if (settings.isProtectionActive(now)) {
+            serviceIntent.putExtra("security_enhanced", settings.getBoolean(GuardSettings.KEY_SECURITY_ENHANCED, true));
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                context.startForegroundService(serviceIntent);
+            } else {
+                context.startService(serviceIntent);
+            }
+            android.util.Log.d("SilentAgent_Schedule", "Protection window transition, guard running");
+        } else {
+            context.stopService(serviceIntent);
+            android.util.Log.d("SilentAgent_Schedule", "Protection window transition, guard stopped");
+        }
+    }
+
+    private static void scheduleAlarm(Context context, long triggerAt) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+        PendingIntent pendingIntent = transitionIntent(context);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
+        } else {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
+        }
+    }
+
+    private static void cancelAlarm(Context context) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(transitionIntent(context));
+        }
+    }
+
+    private static PendingIntent transitionIntent(Context context) {
+        Intent intent = new Intent(context, ScheduleReceiver.class);
+        intent.setAction(ACTION_SCHEDULE_TRANSITION);
+        return PendingIntent.getBroadcast(context, REQUEST_CODE, intent,
+            PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+}
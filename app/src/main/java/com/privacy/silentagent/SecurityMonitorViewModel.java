@@ -0,0 +1,69 @@
+package com.privacy.silentagent;
+
+import android.os.SystemClock;
+import androidx.lifecycle.ViewModel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class SecurityMonitorViewModel extends ViewModel {
+
+    private static final long DEEP_CHECK_INITIAL_DELAY = 30000;
+    private static final long DEEP_CHECK_INTERVAL = 60000;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "SilentAgent-UiSecurity");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final long createdAt = SystemClock.elapsedRealtime();
+
+    private volatile Runnable deepCheck;
+    private ScheduledFuture<?> scheduled;
+    private long lastRunAt = 0;
+
+    synchronized void onVisible(Runnable check) {
+        deepCheck = check;
+        if (scheduled != null || executor.isShutdown()) {
+            return;
+        }
+        long dueAt = lastRunAt > 0 ? lastRunAt + DEEP_CHECK_INTERVAL : createdAt + DEEP_CHECK_INITIAL_DELAY;
+        long delay = Math.max(0, dueAt - SystemClock.elapsedRealtime());
+        scheduled = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                runDeepCheck();
+            }
+        }, delay, DEEP_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void onHidden() {
+        deepCheck = null;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+    }
+
+    private void runDeepCheck() {
+        Runnable check = deepCheck;
+        if (check == null) {
+            return;
+        }
+        synchronized (this) {
+            lastRunAt = SystemClock.elapsedRealtime();
+        }
+        check.run();
+    }
+
+    @Override
+    protected void onCleared() {
+        onHidden();
+        executor.shutdownNow();
+    }
+}
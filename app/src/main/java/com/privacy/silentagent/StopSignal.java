@@ -0,0 +1,56 @@
+package com.privacy.silentagent;
+
+final class StopSignal {
+
+    private final Object lock = new Object();
+    private volatile boolean stopped = false;
+    private long generation = 0;
+
+    void stop() {
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+    }
+
+    void wake() {
+        synchronized (lock) {
+            generation++;
+            lock.notifyAll();
+        }
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    long generation() {
+        synchronized (lock) {
+            return generation;
+        }
+    }
+
+    boolean await(long timeoutMs) {
+        return await(timeoutMs, generation());
+    }
+
+    boolean await(long timeoutMs, long sinceGeneration) {
+        boolean untilWoken = timeoutMs == Long.MAX_VALUE;
+        long deadline = untilWoken ? 0 : System.nanoTime() + Math.max(0, timeoutMs) * 1000000L;
+        synchronized (lock) {
+            while (!stopped && generation == sinceGeneration) {
+                long remaining = untilWoken ? 0 : (deadline - System.nanoTime()) / 1000000L;
+                if (!untilWoken && remaining <= 0) {
+                    break;
+                }
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return true;
+                }
+            }
+            return stopped;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.privacy.silentagent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+final class WatchdogLog {
+
+    static final String FILE_NAME = "watchdog.log";
+
+    static final String KIND_KILLED = "killed";
+    static final String KIND_STOPPED = "stopped";
+    static final String KIND_RESTARTED = "restarted";
+    static final String KIND_EXIT = "exit";
+    static final String KIND_RESTART_BLOCKED = "restart_blocked";
+
+    private static final int MAX_ENTRIES = 128;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final class Entry {
+        final long detectedAt;
+        final String kind;
+        final long lastSeenAt;
+        final long delay;
+        final String detail;
+
+        Entry(long detectedAt, String kind, long lastSeenAt, String detail) {
+            this.detectedAt = detectedAt;
+            this.kind = kind;
+            this.lastSeenAt = lastSeenAt;
+            this.delay = lastSeenAt > 0 ? Math.max(0, detectedAt - lastSeenAt) : -1;
+            this.detail = detail != null ? detail : "";
+        }
+
+        String encode() {
+            return detectedAt + "\t" + kind + "\t" + lastSeenAt + "\t" + delay + "\t"
+                + detail.replace('\t', ' ').replace('\n', ' ');
+        }
+
+        static Entry decode(String line) {
+            String[] parts = line.split("\t", 5);
+            if (parts.length < 4) {
+                return null;
+            }
+            try {
+                return new Entry(Long.parseLong(parts[0]), parts[1], Long.parseLong(parts[2]),
+                    parts.length > 4 ? parts[4] : "");
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private WatchdogLog() {
+    }
+
+    static void append(File directory, Entry entry) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(new File(directory, FILE_NAME), "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            FileLock lock = channel.lock();
+            try {
+                List<Entry> entries = decodeAll(readAll(channel));
+                entries.add(entry);
+                int from = Math.max(0, entries.size() - MAX_ENTRIES);
+                StringBuilder out = new StringBuilder();
+                for (int i = from; i < entries.size(); i++) {
+                    out.append(entries.get(i).encode()).append('\n');
+                }
+                byte[] bytes = out.toString().getBytes(UTF_8);
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(bytes), 0);
+                channel.force(false);
+            } finally {
+                lock.release();
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    static List<Entry> read(File directory) throws IOException {
+        File file = new File(directory, FILE_NAME);
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return decodeAll(readAll(raf.getChannel()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    static void export(File directory, Map<String, String> out) {
+        try {
+            List<Entry> entries = read(directory);
+            int deaths = 0;
+            int exits = 0;
+            int blocked = 0;
+            long maxDelay = -1;
+            Entry lastDeath = null;
+            Entry lastExit = null;
+            for (Entry entry : entries) {
+                if (KIND_EXIT.equals(entry.kind)) {
+                    exits++;
+                    lastExit = entry;
+                } else if (KIND_RESTART_BLOCKED.equals(entry.kind)) {
+                    blocked++;
+                } else {
+                    deaths++;
+                    lastDeath = entry;
+                    maxDelay = Math.max(maxDelay, entry.delay);
+                }
+            }
+            out.put("watchdog.deaths", String.valueOf(deaths));
+            out.put("watchdog.restart_blocked", String.valueOf(blocked));
+            out.put("watchdog.max_detection_delay_ms", String.valueOf(maxDelay));
+            out.put("watchdog.last_death", lastDeath != null
+                ? lastDeath.kind + "@" + lastDeath.detectedAt + " delay=" + lastDeath.delay + "ms" : "");
+            out.put("watchdog.exit_reasons", String.valueOf(exits));
+            out.put("watchdog.last_exit_reason", lastExit != null ? lastExit.detail : "");
+        } catch (Exception e) {
+            out.put("watchdog.error", e.getClass().getSimpleName());
+        }
+    }
+
+    private static String readAll(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size <= 0) {
+            return "";
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+        }
+        return new String(buffer.array(), 0, buffer.position(), UTF_8);
+    }
+
+    private static List<Entry> decodeAll(String text) {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            Entry entry = line.isEmpty() ? null : Entry.decode(line);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+}
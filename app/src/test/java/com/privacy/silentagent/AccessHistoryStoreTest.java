@@ -0,0 +1,61 @@
+package com.privacy.silentagent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Test;
+
+public class AccessHistoryStoreTest {
+
+    private static File newDirectory() throws Exception {
+        File directory = Files.createTempDirectory("access-history").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    @Test
+    public void appendedEventsReadBackNewestFirst() throws Exception {
+        AccessHistoryStore store = AccessHistoryStore.open(newDirectory());
+        store.append(100, 200, 10001, "com.example.a", AccessHistoryStore.OUTCOME_RECORDED,
+            AccessHistoryStore.SOURCE_APP_OPS);
+        store.append(300, 400, -1, null, AccessHistoryStore.OUTCOME_SILENCED,
+            AccessHistoryStore.SOURCE_RECORDING_CALLBACK);
+
+        List<AccessHistoryStore.Event> events = store.readNewestFirst(0, 10);
+        assertEquals(2, events.size());
+        assertEquals(400, events.get(0).end);
+        assertEquals(AccessHistoryStore.NO_PACKAGE, events.get(0).packageIndex);
+        assertEquals("com.example.a", store.packageName(events.get(1).packageIndex));
+    }
+
+    @Test
+    public void historyIsCappedToNewestEvents() throws Exception {
+        AccessHistoryStore store = AccessHistoryStore.open(newDirectory());
+        int total = AccessHistoryStore.MAX_EVENTS * 2;
+        for (int i = 0; i < total; i++) {
+            store.append(i, i + 1, 10001, "com.example.a", AccessHistoryStore.OUTCOME_RECORDED,
+                AccessHistoryStore.SOURCE_APP_OPS);
+        }
+
+        assertTrue(store.size() <= AccessHistoryStore.MAX_EVENTS + 512);
+        assertTrue(store.size() >= AccessHistoryStore.MAX_EVENTS);
+        assertEquals(total, store.readNewestFirst(0, 1).get(0).end);
+    }
+
+    @Test
+    public void expiredEventsAreDroppedOnOpenForWriting() throws Exception {
+        File directory = newDirectory();
+        long now = 200L * 24 * 60 * 60 * 1000;
+        AccessHistoryStore store = AccessHistoryStore.open(directory);
+        store.append(0, 1000, 10001, "old", AccessHistoryStore.OUTCOME_RECORDED, AccessHistoryStore.SOURCE_APP_OPS);
+        store.append(now - 2000, now - 1000, 10001, "new", AccessHistoryStore.OUTCOME_RECORDED,
+            AccessHistoryStore.SOURCE_APP_OPS);
+
+        AccessHistoryStore reopened = AccessHistoryStore.openForWriting(directory, now);
+        assertEquals(1, reopened.size());
+        assertEquals(now - 1000, reopened.readNewestFirst(0, 1).get(0).end);
+    }
+}
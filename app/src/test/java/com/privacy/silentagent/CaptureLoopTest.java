@@ -0,0 +1,107 @@
+package com.privacy.silentagent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class CaptureLoopTest {
+
+    private static Thread startLoop(final StopSignal signal, final long delay, final AtomicInteger steps) {
+        Thread worker = new Thread(() -> CaptureLoop.run(signal, new CaptureLoop.Step() {
+            @Override
+            public long run() {
+                steps.incrementAndGet();
+                return delay;
+            }
+        }));
+        worker.start();
+        return worker;
+    }
+
+    @Test(timeout = 5000)
+    public void loopExitsWithinShutdownBudget() throws Exception {
+        StopSignal signal = new StopSignal();
+        AtomicInteger steps = new AtomicInteger();
+        Thread worker = startLoop(signal, 60000, steps);
+        while (steps.get() == 0) {
+            Thread.sleep(1);
+        }
+
+        long start = System.nanoTime();
+        signal.stop();
+        assertTrue(CaptureLoop.awaitWorkers(CaptureLoop.SHUTDOWN_BUDGET, worker));
+        long elapsed = (System.nanoTime() - start) / 1000000L;
+        assertFalse(worker.isAlive());
+        assertTrue("shutdown took " + elapsed + "ms", elapsed <= CaptureLoop.SHUTDOWN_BUDGET);
+        assertEquals(1, steps.get());
+    }
+
+    @Test(timeout = 5000)
+    public void busyLoopExitsWithinShutdownBudget() throws Exception {
+        StopSignal signal = new StopSignal();
+        AtomicInteger steps = new AtomicInteger();
+        Thread worker = startLoop(signal, 0, steps);
+        Thread.sleep(20);
+
+        long start = System.nanoTime();
+        signal.stop();
+        assertTrue(CaptureLoop.awaitWorkers(CaptureLoop.SHUTDOWN_BUDGET, worker));
+        assertTrue((System.nanoTime() - start) / 1000000L <= CaptureLoop.SHUTDOWN_BUDGET);
+        assertFalse(worker.isAlive());
+    }
+
+    @Test
+    public void negativeDelayEndsLoop() {
+        StopSignal signal = new StopSignal();
+        AtomicInteger steps = new AtomicInteger();
+        CaptureLoop.run(signal, new CaptureLoop.Step() {
+            @Override
+            public long run() {
+                return steps.incrementAndGet() < 3 ? 0 : -1;
+            }
+        });
+        assertEquals(3, steps.get());
+        assertFalse(signal.isStopped());
+    }
+
+    @Test(timeout = 5000)
+    public void wakeDuringStepEndsTheFollowingWait() throws Exception {
+        final StopSignal signal = new StopSignal();
+        final AtomicInteger steps = new AtomicInteger();
+        Thread worker = new Thread(() -> CaptureLoop.run(signal, new CaptureLoop.Step() {
+            @Override
+            public long run() {
+                if (steps.incrementAndGet() == 1) {
+                    signal.wake();
+                }
+                return Long.MAX_VALUE;
+            }
+        }));
+        worker.start();
+        while (steps.get() < 2) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(20);
+        assertEquals(2, steps.get());
+
+        signal.stop();
+        worker.join(1000);
+        assertFalse(worker.isAlive());
+    }
+
+    @Test(timeout = 5000)
+    public void stragglerIsInterruptedWhenBudgetExpires() throws Exception {
+        final StopSignal unrelated = new StopSignal();
+        Thread straggler = new Thread(() -> unrelated.await(60000));
+        straggler.start();
+
+        long start = System.nanoTime();
+        assertFalse(CaptureLoop.awaitWorkers(50, straggler, null));
+        assertTrue((System.nanoTime() - start) / 1000000L < CaptureLoop.SHUTDOWN_BUDGET);
+        straggler.join(1000);
+        assertFalse(straggler.isAlive());
+    }
+}
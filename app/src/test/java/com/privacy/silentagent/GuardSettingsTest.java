@@ -0,0 +1,79 @@
+package com.privacy.silentagent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+public class GuardSettingsTest {
+
+    private static File newDirectory() throws Exception {
+        File directory = Files.createTempDirectory("guard-settings").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    @Test
+    public void staleWriterKeepsOtherWritersKeys() throws Exception {
+        File directory = newDirectory();
+        GuardSettings first = GuardSettings.load(directory);
+        GuardSettings second = GuardSettings.load(directory);
+
+        assertTrue(first.putBoolean(GuardSettings.KEY_PROTECTION_ENABLED, true).save());
+        assertTrue(second.putLong(GuardSettings.KEY_WATCHDOG_EXIT_CURSOR, 42).save());
+
+        GuardSettings merged = GuardSettings.load(directory);
+        assertEquals(true, merged.getBoolean(GuardSettings.KEY_PROTECTION_ENABLED, false));
+        assertEquals(42, merged.getLong(GuardSettings.KEY_WATCHDOG_EXIT_CURSOR, 0));
+        assertEquals(true, second.getBoolean(GuardSettings.KEY_PROTECTION_ENABLED, false));
+    }
+
+    @Test
+    public void laterWriteOfSameKeyWins() throws Exception {
+        File directory = newDirectory();
+        GuardSettings first = GuardSettings.load(directory);
+        GuardSettings second = GuardSettings.load(directory);
+
+        assertTrue(first.putString(GuardSettings.KEY_SCHEDULE, "a").save());
+        assertTrue(second.putString(GuardSettings.KEY_SCHEDULE, "b").save());
+
+        assertEquals("b", GuardSettings.load(directory).getString(GuardSettings.KEY_SCHEDULE, ""));
+    }
+
+    @Test(timeout = 20000)
+    public void concurrentWritersLoseNoUpdates() throws Exception {
+        final File directory = newDirectory();
+        final int writers = 8;
+        final int writes = 25;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[writers];
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            threads[w] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < writes; i++) {
+                        GuardSettings.load(directory).putLong("writer_" + writer + "_" + i, i).save();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[w].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        GuardSettings settings = GuardSettings.load(directory);
+        for (int w = 0; w < writers; w++) {
+            for (int i = 0; i < writes; i++) {
+                assertEquals(i, settings.getLong("writer_" + w + "_" + i, -1));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.privacy.silentagent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+public class GuardSnapshotTest {
+
+    @Test
+    public void committedWritesAreReadable() throws Exception {
+        File file = File.createTempFile("guard-state", ".bin");
+        file.deleteOnExit();
+        GuardSnapshot snapshot = GuardSnapshot.open(file);
+        snapshot.recordFlag(GuardSnapshot.FLAG_MIC_HELD, true, 1234);
+
+        assertTrue(GuardSnapshot.readFlag(file, GuardSnapshot.FLAG_MIC_HELD));
+        assertFalse(GuardSnapshot.readFlag(file, GuardSnapshot.FLAG_RUNNING));
+        assertEquals(1234, GuardSnapshot.readSavedAt(file));
+        assertTrue(GuardSnapshot.open(file).isRestored());
+    }
+
+    @Test
+    public void writeInProgressIsRejected() {
+        GuardSnapshot snapshot = GuardSnapshot.inMemory();
+        snapshot.recordHeartbeat(10);
+        ByteBuffer view = snapshot.view();
+        assertNotNull(GuardSnapshot.readStable(view));
+
+        long committed = view.getLong(8);
+        view.putLong(8, committed + 1);
+        assertNull(GuardSnapshot.readStable(view));
+
+        view.putLong(8, committed + 2);
+        assertNull(GuardSnapshot.readStable(view));
+    }
+
+    @Test(timeout = 20000)
+    public void concurrentReaderNeverSeesTornPayload() throws Exception {
+        final GuardSnapshot snapshot = GuardSnapshot.inMemory();
+        snapshot.recordRate(8000, false, 2);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        Thread writer = new Thread(() -> {
+            for (long i = 3; i < 400000; i++) {
+                snapshot.recordRate(8000, (i & 1) != 0, i);
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        ByteBuffer view = snapshot.view();
+        long reads = 0;
+        while (!done.get()) {
+            long[] fields = GuardSnapshot.readStable(view);
+            if (fields == null) {
+                continue;
+            }
+            boolean highPower = (fields[0] & GuardSnapshot.FLAG_HIGH_POWER) != 0;
+            assertEquals("savedAt " + fields[1], (fields[1] & 1) != 0, highPower);
+            reads++;
+        }
+        writer.join();
+        assertTrue(reads > 0);
+    }
+}
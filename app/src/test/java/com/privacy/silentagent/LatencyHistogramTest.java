@@ -0,0 +1,102 @@
+package com.privacy.silentagent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private static int bucketOf(long value) {
+        LatencyHistogram histogram = new LatencyHistogram("t");
+        histogram.record(value);
+        long[] buckets = histogram.snapshotBuckets();
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] == 1) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void bucketBoundariesArePowersOfTwo() {
+        assertEquals(0, bucketOf(-5));
+        assertEquals(0, bucketOf(0));
+        assertEquals(0, bucketOf(1));
+        assertEquals(1, bucketOf(2));
+        assertEquals(2, bucketOf(3));
+        assertEquals(2, bucketOf(4));
+        assertEquals(3, bucketOf(5));
+        assertEquals(10, bucketOf(1024));
+        assertEquals(11, bucketOf(1025));
+        for (int i = 1; i < 17; i++) {
+            assertEquals(i, bucketOf(LatencyHistogram.upperBound(i)));
+            assertEquals(i + 1, bucketOf(LatencyHistogram.upperBound(i) + 1));
+        }
+    }
+
+    @Test
+    public void valuesBeyondLastBoundLandInOverflowBucket() {
+        assertEquals(17, bucketOf(LatencyHistogram.upperBound(16) + 1));
+        assertEquals(17, bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentileReportsBucketUpperBoundCappedAtMax() {
+        LatencyHistogram histogram = new LatencyHistogram("t");
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(64, histogram.percentile(0.50));
+        assertEquals(100, histogram.percentile(0.90));
+        assertEquals(100, histogram.percentile(0.99));
+        assertEquals(1, histogram.percentile(0.0));
+        assertEquals(100, histogram.percentile(2.0));
+    }
+
+    @Test
+    public void percentileOfOverflowBucketIsObservedMax() {
+        LatencyHistogram histogram = new LatencyHistogram("t");
+        histogram.record(10);
+        histogram.record(1000000);
+        assertEquals(16, histogram.percentile(0.50));
+        assertEquals(1000000, histogram.percentile(0.99));
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram("t");
+        assertEquals(0, histogram.percentile(0.5));
+        assertEquals("t n=0", histogram.summary());
+    }
+
+    @Test
+    public void exportWritesCountOnlyWhenEmpty() {
+        Map<String, String> out = new HashMap<>();
+        new LatencyHistogram("t").export("latency.toggle", out);
+        assertEquals("0", out.get("latency.toggle.count"));
+        assertNull(out.get("latency.toggle.p50"));
+        assertEquals(1, out.size());
+    }
+
+    @Test
+    public void exportWritesSummaryFields() {
+        LatencyHistogram histogram = new LatencyHistogram("t");
+        histogram.record(3);
+        histogram.record(7);
+        histogram.record(300);
+        Map<String, String> out = new HashMap<>();
+        histogram.export("p", out);
+        assertEquals("3", out.get("p.count"));
+        assertEquals("3", out.get("p.min"));
+        assertEquals("8", out.get("p.p50"));
+        assertEquals("300", out.get("p.p90"));
+        assertEquals("300", out.get("p.p99"));
+        assertEquals("300", out.get("p.max"));
+        assertEquals("103", out.get("p.mean"));
+        assertEquals("t n=3 min=3 p50=8 p90=300 p99=300 max=300 mean=103", histogram.summary());
+    }
+}
@@ -0,0 +1,63 @@
+package com.privacy.silentagent;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.Test;
+
+public class ProtectionIntentTest {
+
+    private static GuardSettings newSettings() throws Exception {
+        File directory = Files.createTempDirectory("guard-intent").toFile();
+        directory.deleteOnExit();
+        return GuardSettings.load(directory);
+    }
+
+    private static void enterWindow(GuardSettings settings, long windowEnd) {
+        settings.putBoolean(GuardSettings.KEY_SCHEDULE_ACTIVE, true)
+            .putLong(GuardSettings.KEY_SCHEDULE_NEXT, windowEnd);
+    }
+
+    @Test
+    public void windowProtectsWhenUserLeftProtectionOff() throws Exception {
+        GuardSettings settings = newSettings();
+        assertFalse(settings.isProtectionActive(1000));
+        enterWindow(settings, 5000);
+        assertTrue(settings.isProtectionActive(1000));
+    }
+
+    @Test
+    public void turningOffInsideWindowHoldsUntilWindowEnds() throws Exception {
+        GuardSettings settings = newSettings();
+        enterWindow(settings, 5000);
+        settings.setProtectionEnabled(false);
+        assertFalse(settings.isProtectionActive(1000));
+        assertFalse(settings.isProtectionActive(4999));
+
+        settings.putBoolean(GuardSettings.KEY_SCHEDULE_ACTIVE, false);
+        enterWindow(settings, 20000);
+        assertTrue(settings.isProtectionActive(10000));
+    }
+
+    @Test
+    public void manualProtectionSurvivesWindowEnd() throws Exception {
+        GuardSettings settings = newSettings();
+        enterWindow(settings, 5000);
+        settings.setProtectionEnabled(true);
+        settings.putBoolean(GuardSettings.KEY_SCHEDULE_ACTIVE, false);
+        assertTrue(settings.isProtectionActive(6000));
+    }
+
+    @Test
+    public void turningOnClearsDismissal() throws Exception {
+        GuardSettings settings = newSettings();
+        enterWindow(settings, 5000);
+        settings.setProtectionEnabled(false);
+        settings.setProtectionEnabled(true);
+        settings.setProtectionEnabled(false);
+        settings.putBoolean(GuardSettings.KEY_SCHEDULE_ACTIVE, false);
+        assertFalse(settings.isProtectionActive(2000));
+    }
+}
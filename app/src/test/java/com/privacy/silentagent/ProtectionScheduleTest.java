@@ -0,0 +1,133 @@
+package com.privacy.silentagent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import org.junit.Test;
+
+public class ProtectionScheduleTest {
+
+    private static final TimeZone BERLIN = TimeZone.getTimeZone("Europe/Berlin");
+    private static final int MONDAY = 0;
+    private static final int FRIDAY = 4;
+    private static final int SUNDAY = 6;
+    private static final int EVERY_DAY = 0x7f;
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private static long at(int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance(BERLIN);
+        calendar.clear();
+        calendar.set(2026, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    private static ProtectionSchedule weekly(int dayMask, int startMinute, int endMinute) {
+        ProtectionSchedule schedule = new ProtectionSchedule();
+        schedule.addWeekly(new ProtectionSchedule.WeeklyWindow(dayMask, startMinute, endMinute));
+        return schedule;
+    }
+
+    @Test
+    public void overnightWindowSpansIntoNextDay() {
+        ProtectionSchedule schedule = weekly(1 << FRIDAY, 22 * 60, 7 * 60);
+
+        assertFalse(schedule.isActive(at(Calendar.OCTOBER, 16, 21, 59), BERLIN));
+        assertTrue(schedule.isActive(at(Calendar.OCTOBER, 16, 23, 0), BERLIN));
+        assertTrue(schedule.isActive(at(Calendar.OCTOBER, 17, 6, 59), BERLIN));
+        assertFalse(schedule.isActive(at(Calendar.OCTOBER, 17, 7, 0), BERLIN));
+        assertFalse(schedule.isActive(at(Calendar.OCTOBER, 15, 23, 0), BERLIN));
+        assertFalse(schedule.isActive(at(Calendar.OCTOBER, 17, 23, 0), BERLIN));
+
+        assertEquals(at(Calendar.OCTOBER, 16, 22, 0), schedule.nextTransition(at(Calendar.OCTOBER, 16, 12, 0), BERLIN));
+        assertEquals(at(Calendar.OCTOBER, 17, 7, 0), schedule.nextTransition(at(Calendar.OCTOBER, 16, 23, 0), BERLIN));
+        assertEquals(at(Calendar.OCTOBER, 23, 22, 0), schedule.nextTransition(at(Calendar.OCTOBER, 17, 7, 0), BERLIN));
+    }
+
+    @Test
+    public void sundayWindowSpansIntoMonday() {
+        ProtectionSchedule schedule = weekly(1 << SUNDAY, 20 * 60, 2 * 60);
+        schedule.addWeekly(new ProtectionSchedule.WeeklyWindow(1 << MONDAY, 9 * 60, 17 * 60));
+
+        assertTrue(schedule.isActive(at(Calendar.OCTOBER, 19, 1, 0), BERLIN));
+        assertFalse(schedule.isActive(at(Calendar.OCTOBER, 19, 2, 0), BERLIN));
+        assertFalse(schedule.isActive(at(Calendar.OCTOBER, 12, 19, 0), BERLIN));
+
+        assertEquals(at(Calendar.OCTOBER, 18, 20, 0), schedule.nextTransition(at(Calendar.OCTOBER, 17, 12, 0), BERLIN));
+        assertEquals(at(Calendar.OCTOBER, 19, 2, 0), schedule.nextTransition(at(Calendar.OCTOBER, 18, 21, 0), BERLIN));
+        assertEquals(at(Calendar.OCTOBER, 19, 9, 0), schedule.nextTransition(at(Calendar.OCTOBER, 19, 2, 0), BERLIN));
+        assertEquals(at(Calendar.OCTOBER, 25, 20, 0), schedule.nextTransition(at(Calendar.OCTOBER, 19, 17, 0), BERLIN));
+    }
+
+    @Test
+    public void springForwardShortensWindowAndStartsSkippedTimesWhenGapEnds() {
+        ProtectionSchedule schedule = weekly(1 << SUNDAY, 60, 4 * 60);
+        long start = schedule.nextTransition(at(Calendar.MARCH, 29, 0, 30), BERLIN);
+        assertEquals(at(Calendar.MARCH, 29, 1, 0), start);
+        assertEquals(2 * HOUR, schedule.nextTransition(start, BERLIN) - start);
+
+        ProtectionSchedule skipped = weekly(1 << SUNDAY, 2 * 60 + 30, 5 * 60);
+        long gapEnd = at(Calendar.MARCH, 29, 3, 0);
+        assertFalse(skipped.isActive(gapEnd - 1, BERLIN));
+        assertTrue(skipped.isActive(gapEnd, BERLIN));
+        assertEquals(gapEnd, skipped.nextTransition(at(Calendar.MARCH, 29, 1, 30), BERLIN));
+        assertEquals(at(Calendar.MARCH, 29, 5, 0), skipped.nextTransition(gapEnd, BERLIN));
+    }
+
+    @Test
+    public void fallBackLengthensWindow() {
+        ProtectionSchedule schedule = weekly(1 << SUNDAY, 60, 4 * 60);
+        long start = schedule.nextTransition(at(Calendar.OCTOBER, 25, 0, 30), BERLIN);
+        assertEquals(at(Calendar.OCTOBER, 25, 1, 0), start);
+        long end = schedule.nextTransition(start, BERLIN);
+        assertEquals(at(Calendar.OCTOBER, 25, 4, 0), end);
+        assertEquals(4 * HOUR, end - start);
+        assertTrue(schedule.isActive(end - 1, BERLIN));
+    }
+
+    @Test
+    public void oneOffExtendingWeeklyWindowDelaysTheStop() {
+        ProtectionSchedule schedule = weekly(EVERY_DAY, 22 * 60, 7 * 60);
+        schedule.addOneOff(new ProtectionSchedule.OneOffWindow(at(Calendar.OCTOBER, 17, 6, 0), at(Calendar.OCTOBER, 17, 9, 0)));
+
+        assertTrue(schedule.isActive(at(Calendar.OCTOBER, 17, 8, 0), BERLIN));
+        assertEquals(at(Calendar.OCTOBER, 17, 9, 0), schedule.nextTransition(at(Calendar.OCTOBER, 16, 23, 0), BERLIN));
+        assertEquals(at(Calendar.OCTOBER, 17, 22, 0), schedule.nextTransition(at(Calendar.OCTOBER, 17, 9, 0), BERLIN));
+    }
+
+    @Test
+    public void oneOffInsideOrBeforeWeeklyWindowAddsNoSpuriousTransitions() {
+        ProtectionSchedule schedule = weekly(EVERY_DAY, 22 * 60, 7 * 60);
+        schedule.addOneOff(new ProtectionSchedule.OneOffWindow(at(Calendar.OCTOBER, 17, 1, 0), at(Calendar.OCTOBER, 17, 2, 0)));
+        schedule.addOneOff(new ProtectionSchedule.OneOffWindow(at(Calendar.OCTOBER, 16, 20, 0), at(Calendar.OCTOBER, 16, 22, 30)));
+
+        assertEquals(at(Calendar.OCTOBER, 16, 20, 0), schedule.nextTransition(at(Calendar.OCTOBER, 16, 19, 0), BERLIN));
+        assertEquals(at(Calendar.OCTOBER, 17, 7, 0), schedule.nextTransition(at(Calendar.OCTOBER, 16, 20, 30), BERLIN));
+    }
+
+    @Test
+    public void nextOneOffUsesUpcomingOccurrence() {
+        ProtectionSchedule.OneOffWindow tonight = ProtectionSchedule.nextOneOff(
+            at(Calendar.OCTOBER, 16, 23, 0), BERLIN, 22 * 60, 7 * 60);
+        assertEquals(at(Calendar.OCTOBER, 16, 22, 0), tonight.startMillis);
+        assertEquals(at(Calendar.OCTOBER, 17, 7, 0), tonight.endMillis);
+
+        ProtectionSchedule.OneOffWindow tomorrow = ProtectionSchedule.nextOneOff(
+            at(Calendar.OCTOBER, 17, 8, 0), BERLIN, 22 * 60, 7 * 60);
+        assertEquals(at(Calendar.OCTOBER, 17, 22, 0), tomorrow.startMillis);
+        assertEquals(at(Calendar.OCTOBER, 18, 7, 0), tomorrow.endMillis);
+    }
+
+    @Test
+    public void encodeRoundTripsBothWindowKinds() {
+        ProtectionSchedule schedule = weekly(1 << FRIDAY, 22 * 60, 7 * 60);
+        schedule.addOneOff(new ProtectionSchedule.OneOffWindow(1000, 2000));
+
+        ProtectionSchedule decoded = ProtectionSchedule.parse(schedule.encode());
+        assertEquals(schedule.encode(), decoded.encode());
+        assertTrue(decoded.isActive(1500, BERLIN));
+        assertEquals(-1, new ProtectionSchedule().nextTransition(0, BERLIN));
+    }
+}
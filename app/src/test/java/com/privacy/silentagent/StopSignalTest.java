@@ -0,0 +1,90 @@
+package com.privacy.silentagent;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StopSignalTest {
+
+    @Test
+    public void awaitTimesOutWithoutStop() {
+        StopSignal signal = new StopSignal();
+        long start = System.nanoTime();
+        assertFalse(signal.await(30));
+        assertTrue((System.nanoTime() - start) / 1000000L >= 25);
+        assertFalse(signal.isStopped());
+    }
+
+    @Test
+    public void awaitReturnsImmediatelyOnceStopped() {
+        StopSignal signal = new StopSignal();
+        signal.stop();
+        long start = System.nanoTime();
+        assertTrue(signal.await(60000));
+        assertTrue(signal.isStopped());
+        assertTrue((System.nanoTime() - start) / 1000000L < 50);
+    }
+
+    @Test(timeout = 5000)
+    public void stopWakesBlockedWaiter() throws Exception {
+        final StopSignal signal = new StopSignal();
+        final boolean[] result = new boolean[1];
+        Thread waiter = new Thread(() -> result[0] = signal.await(60000));
+        waiter.start();
+        Thread.sleep(20);
+        signal.stop();
+        waiter.join(1000);
+        assertFalse(waiter.isAlive());
+        assertTrue(result[0]);
+    }
+
+    @Test(timeout = 5000)
+    public void wakeEndsWaitWithoutStopping() throws Exception {
+        final StopSignal signal = new StopSignal();
+        final boolean[] result = {true};
+        Thread waiter = new Thread(() -> result[0] = signal.await(60000));
+        waiter.start();
+        Thread.sleep(20);
+        signal.wake();
+        waiter.join(1000);
+        assertFalse(waiter.isAlive());
+        assertFalse(result[0]);
+        assertFalse(signal.isStopped());
+    }
+
+    @Test(timeout = 5000)
+    public void untilWokenWaitsForWakeWithoutDeadline() throws Exception {
+        final StopSignal signal = new StopSignal();
+        final boolean[] result = {true};
+        Thread waiter = new Thread(() -> result[0] = signal.await(Long.MAX_VALUE));
+        waiter.start();
+        Thread.sleep(50);
+        assertTrue(waiter.isAlive());
+        signal.wake();
+        waiter.join(1000);
+        assertFalse(waiter.isAlive());
+        assertFalse(result[0]);
+    }
+
+    @Test
+    public void wakeBeforeAwaitIsNotLost() {
+        StopSignal signal = new StopSignal();
+        long generation = signal.generation();
+        signal.wake();
+        long start = System.nanoTime();
+        assertFalse(signal.await(Long.MAX_VALUE, generation));
+        assertTrue((System.nanoTime() - start) / 1000000L < 50);
+    }
+
+    @Test
+    public void interruptCountsAsStop() {
+        StopSignal signal = new StopSignal();
+        Thread.currentThread().interrupt();
+        try {
+            assertTrue(signal.await(60000));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
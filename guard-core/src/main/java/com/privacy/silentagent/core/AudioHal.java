@@ -0,0 +1,8 @@
+package com.privacy.silentagent.core;
+
+public interface AudioHal {
+
+    int getMinBufferSize(int sampleRate);
+
+    Recorder open(int audioSource, int sampleRate, int bufferSize);
+}
@@ -0,0 +1,62 @@
+package com.privacy.silentagent.core;
+
+public final class CaptureTuning {
+
+    public final int audioSource;
+    public final int sampleRate;
+    public final int bufferMultiplier;
+    public final int loopSleep;
+
+    public CaptureTuning(int audioSource, int sampleRate, int bufferMultiplier, int loopSleep) {
+        this.audioSource = audioSource;
+        this.sampleRate = sampleRate;
+        this.bufferMultiplier = Math.max(1, bufferMultiplier);
+        this.loopSleep = Math.max(1, loopSleep);
+    }
+
+    public String encode() {
+        return audioSource + "," + sampleRate + "," + bufferMultiplier + "," + loopSleep;
+    }
+
+    public static CaptureTuning decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        String[] parts = value.split(",");
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            int sampleRate = Integer.parseInt(parts[1].trim());
+            if (sampleRate <= 0) {
+                return null;
+            }
+            return new CaptureTuning(Integer.parseInt(parts[0].trim()), sampleRate,
+                Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[3].trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String describe() {
+        String source = audioSource == PowerProfile.AUDIO_SOURCE_MIC ? "mic"
+            : audioSource == PowerProfile.AUDIO_SOURCE_VOICE_RECOGNITION ? "voice_recognition"
+            : String.valueOf(audioSource);
+        return source + " " + sampleRate + "Hz x" + bufferMultiplier + " buffer " + loopSleep + "ms";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof CaptureTuning)) {
+            return false;
+        }
+        CaptureTuning tuning = (CaptureTuning) other;
+        return audioSource == tuning.audioSource && sampleRate == tuning.sampleRate
+            && bufferMultiplier == tuning.bufferMultiplier && loopSleep == tuning.loopSleep;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((audioSource * 31 + sampleRate) * 31 + bufferMultiplier) * 31 + loopSleep;
+    }
+}
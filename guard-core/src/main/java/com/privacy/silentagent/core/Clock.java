@@ -0,0 +1,8 @@
+package com.privacy.silentagent.core;
+
+public interface Clock {
+
+    long elapsedMillis();
+
+    long elapsedNanos();
+}
@@ -0,0 +1,584 @@
+package com.privacy.silentagent.core;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+public final class GuardEngine {
+
+    public interface Listener {
+        void onHeld(int sampleRate, int sessionId);
+
+        void onReleased();
+
+        void onRecovered(int consecutiveErrors);
+
+        void onError(int errorCode, RetryPolicy.ErrorClass errorClass, int consecutiveErrors, int totalErrors,
+                     RetryPolicy.CircuitState circuitState, long retryDelay);
+
+        void onModeChanged(boolean highPower, int sampleRate);
+
+        void onHoldQualityChanged(int verdict, int sampleRate);
+
+        void onSilenceTransition(int transition);
+
+        void onEvent(String message);
+
+        void onFailure(String message, Exception e);
+    }
+
+    public static final long UNTIL_WOKEN = Long.MAX_VALUE;
+    public static final long SILENCE_REACQUIRE_INTERVAL = 30000;
+    public static final int MAX_CONSECUTIVE_ERRORS = 5;
+
+    private static final int BUFFER_BYTES = 1024;
+
+    private final AudioHal hal;
+    private final Clock clock;
+    private final Listener listener;
+    private final Object lock = new Object();
+    private final RetryPolicy retryPolicy;
+    private final HoldQualityMonitor holdQuality = new HoldQualityMonitor();
+    private final SilenceDetector silenceDetector = new SilenceDetector(PowerProfile.BALANCED.lowRate);
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+
+    private volatile Recorder recorder;
+    private volatile PowerProfile profile = PowerProfile.BALANCED;
+    private volatile int currentRate = PowerProfile.BALANCED.lowRate;
+    private volatile boolean highPower = false;
+    private volatile boolean rebuildRequested = false;
+    private volatile boolean yielded = false;
+    private volatile boolean zeroing = false;
+    private volatile boolean stopped = false;
+    private volatile long generation = 0;
+    private volatile int consecutiveErrors = 0;
+    private volatile int totalErrors = 0;
+    private volatile int preparedRate = 0;
+    private volatile int preparedMinBuffer = 0;
+    private volatile int preparedBufferSize = 0;
+    private volatile CaptureTuning tuning;
+    private volatile int highRateLimit = 0;
+    private volatile int highPowerSleepFloor = 0;
+    private int holdVerdict = HoldQualityMonitor.VERDICT_OK;
+    private long lastSilenceReacquireAt = 0;
+
+    public GuardEngine(AudioHal hal, Clock clock, Random random, Listener listener) {
+        this.hal = hal;
+        this.clock = clock;
+        this.retryPolicy = new RetryPolicy(random);
+        this.listener = listener;
+    }
+
+    public long start() {
+        synchronized (lock) {
+            stopped = false;
+            return ++generation;
+        }
+    }
+
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+        }
+        Recorder active = recorder;
+        if (active != null) {
+            try {
+                active.stop();
+            } catch (Exception e) {
+                listener.onEvent("Recorder stop failed during shutdown");
+            }
+        }
+    }
+
+    public long step() {
+        if (stopped) {
+            return 0;
+        }
+        long now = clock.elapsedMillis();
+
+        if (yielded) {
+            releaseRecorder();
+            return UNTIL_WOKEN;
+        }
+
+        if (!retryPolicy.allowAttempt(now)) {
+            return Math.max(1, retryPolicy.remainingOpenTime(now));
+        }
+
+        int errorCode = 0;
+        synchronized (lock) {
+            if (stopped || yielded) {
+                return 0;
+            }
+
+            if (rebuildRequested) {
+                rebuildRequested = false;
+                discardRecorderLocked();
+            }
+
+            Recorder active = recorder;
+            if (active == null || !active.isRecording()) {
+                if (!initializeRecorder(currentRate)) {
+                    errorCode = RetryPolicy.ERROR;
+                }
+            } else {
+                int read = active.read(buffer, 0, buffer.length);
+                if (read < 0) {
+                    errorCode = read;
+                } else {
+                    onRead(active, read);
+                }
+            }
+        }
+
+        if (stopped || yielded) {
+            return 0;
+        }
+        return errorCode < 0 ? handleError(errorCode) : (highPower ? highPowerSleep(profile) : lowPowerSleep(profile));
+    }
+
+    public boolean initializeRecorder(int sampleRate) {
+        synchronized (lock) {
+            try {
+                if (stopped) {
+                    return false;
+                }
+                if (recorder != null) {
+                    recorder.release();
+                    recorder = null;
+                }
+
+                int minBuffer = sampleRate == preparedRate ? preparedMinBuffer : 0;
+                if (minBuffer <= 0) {
+                    minBuffer = hal.getMinBufferSize(sampleRate);
+                    if (minBuffer <= 0) {
+                        return false;
+                    }
+                }
+                CaptureTuning active = tuning;
+                int bufferSize = active != null && !highPower && sampleRate == active.sampleRate
+                    ? minBuffer * bufferMultiplier(profile) : minBuffer;
+
+                Recorder created = hal.open(audioSource(profile), sampleRate, bufferSize);
+                if (created == null) {
+                    return false;
+                }
+                if (!created.start()) {
+                    created.release();
+                    return false;
+                }
+                recorder = created;
+
+                preparedRate = sampleRate;
+                preparedMinBuffer = minBuffer;
+                preparedBufferSize = bufferSize;
+                holdQuality.reset(sampleRate, bufferSize / 2, clock.elapsedNanos());
+                holdVerdict = HoldQualityMonitor.VERDICT_OK;
+                silenceDetector.reset(sampleRate);
+
+                listener.onEvent("Recorder initialized at " + sampleRate + "Hz");
+                listener.onHeld(sampleRate, created.getSessionId());
+                return true;
+            } catch (Exception e) {
+                listener.onFailure("Recorder initialization failed", e);
+                if (recorder != null) {
+                    try {
+                        recorder.release();
+                    } catch (Exception releaseError) {
+                        listener.onEvent("Recorder release failed after initialization error");
+                    }
+                    recorder = null;
+                }
+                return false;
+            }
+        }
+    }
+
+    public void releaseRecorder() {
+        synchronized (lock) {
+            if (recorder != null) {
+                try {
+                    recorder.release();
+                } catch (Exception e) {
+                    listener.onEvent("Recorder release failed after error");
+                }
+                recorder = null;
+            }
+        }
+        listener.onReleased();
+    }
+
+    public void releaseRecorder(long owner) {
+        synchronized (lock) {
+            if (owner != generation) {
+                return;
+            }
+        }
+        releaseRecorder();
+    }
+
+    public boolean switchToHighPower() {
+        int rate;
+        synchronized (lock) {
+            PowerProfile active = profile;
+            if (stopped || yielded || highPower || !active.highPowerAllowed) {
+                return false;
+            }
+            highPower = true;
+            currentRate = highRate(active);
+            listener.onEvent("Switching to high power mode");
+            discardRecorderLocked();
+
+            if (!initializeRecorder(currentRate)) {
+                currentRate = lowRate(active);
+                initializeRecorder(currentRate);
+            }
+            rate = currentRate;
+        }
+        listener.onModeChanged(true, rate);
+        return true;
+    }
+
+    public boolean switchToLowPower() {
+        int rate;
+        synchronized (lock) {
+            if (!highPower) {
+                return false;
+            }
+            highPower = false;
+            currentRate = lowRate(profile);
+            rebuildRequested = true;
+            rate = currentRate;
+        }
+        listener.onEvent("Switching to low power mode");
+        listener.onModeChanged(false, rate);
+        return true;
+    }
+
+    public boolean applyProfile(PowerProfile next) {
+        synchronized (lock) {
+            PowerProfile previous = profile;
+            if (next == previous) {
+                return false;
+            }
+            profile = next;
+            if (highPower && !next.highPowerAllowed) {
+                highPower = false;
+            }
+            int targetRate = highPower ? highRate(next) : lowRate(next);
+            if (targetRate != currentRate || audioSource(next) != audioSource(previous)
+                    || (!highPower && bufferMultiplier(next) != bufferMultiplier(previous))) {
+                currentRate = targetRate;
+                rebuildRequested = true;
+            }
+            return true;
+        }
+    }
+
+    public boolean restoreRate(int rate) {
+        synchronized (lock) {
+            PowerProfile active = profile;
+            int low = lowRate(active);
+            if (rate == low || (rate == highRate(active) && active.highPowerAllowed)) {
+                currentRate = rate;
+                highPower = rate != low;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public void setTuning(CaptureTuning next) {
+        synchronized (lock) {
+            CaptureTuning previous = tuning;
+            if (next == null ? previous == null : next.equals(previous)) {
+                return;
+            }
+            int previousSource = audioSource(profile);
+            int previousMultiplier = bufferMultiplier(profile);
+            int previousLowRate = lowRate(profile);
+            tuning = next;
+            if (!highPower && (audioSource(profile) != previousSource || bufferMultiplier(profile) != previousMultiplier
+                    || lowRate(profile) != previousLowRate)) {
+                currentRate = lowRate(profile);
+                rebuildRequested = true;
+            }
+        }
+        listener.onEvent("Capture tuning " + (next != null ? next.describe() : "cleared"));
+    }
+
+    public void setHighPowerLimits(int rateLimit, int sleepFloor) {
+        synchronized (lock) {
+            if (rateLimit == highRateLimit && sleepFloor == highPowerSleepFloor) {
+                return;
+            }
+            int previousRate = highRate(profile);
+            highRateLimit = Math.max(0, rateLimit);
+            highPowerSleepFloor = Math.max(0, sleepFloor);
+            if (highPower && highRate(profile) != previousRate) {
+                currentRate = highRate(profile);
+                rebuildRequested = true;
+            }
+        }
+        listener.onEvent("High power limits " + rateLimit + "Hz, " + sleepFloor + "ms");
+    }
+
+    public int getHighRate() {
+        return highRate(profile);
+    }
+
+    public CaptureTuning getTuning() {
+        return tuning;
+    }
+
+    public int getLowRate() {
+        return lowRate(profile);
+    }
+
+    public int getAudioSource() {
+        return audioSource(profile);
+    }
+
+    public void requestRebuild() {
+        rebuildRequested = true;
+    }
+
+    public boolean yieldMicrophone() {
+        synchronized (lock) {
+            if (yielded) {
+                return false;
+            }
+            yielded = true;
+        }
+        Recorder active = recorder;
+        if (active != null) {
+            try {
+                active.stop();
+            } catch (Exception e) {
+                listener.onEvent("Recorder stop failed during yield");
+            }
+        }
+        return true;
+    }
+
+    public boolean reclaimMicrophone() {
+        synchronized (lock) {
+            if (!yielded) {
+                return false;
+            }
+            retryPolicy.onSuccess();
+            consecutiveErrors = 0;
+            yielded = false;
+            return true;
+        }
+    }
+
+    public void setZeroing(boolean zeroing) {
+        this.zeroing = zeroing;
+    }
+
+    public void setTotalErrors(int totalErrors) {
+        this.totalErrors = totalErrors;
+    }
+
+    public PowerProfile getProfile() {
+        return profile;
+    }
+
+    public int getCurrentRate() {
+        return currentRate;
+    }
+
+    public boolean isHighPower() {
+        return highPower;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public boolean isHolding() {
+        return recorder != null;
+    }
+
+    public boolean isYielded() {
+        return yielded;
+    }
+
+    public boolean isZeroing() {
+        return zeroing;
+    }
+
+    public int getConsecutiveErrors() {
+        return consecutiveErrors;
+    }
+
+    public int getTotalErrors() {
+        return totalErrors;
+    }
+
+    public int getPreparedBufferSize() {
+        return preparedBufferSize;
+    }
+
+    public String describeRecorder() {
+        Recorder active = recorder;
+        if (active == null) {
+            return "none";
+        }
+        try {
+            return active.describe();
+        } catch (Exception e) {
+            return "released";
+        }
+    }
+
+    public int getSessionId() {
+        Recorder active = recorder;
+        return active != null ? active.getSessionId() : -1;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public SilenceDetector getSilenceDetector() {
+        return silenceDetector;
+    }
+
+    public void export(Map<String, String> out) {
+        out.put("capture.rate", String.valueOf(currentRate));
+        out.put("capture.mode", highPower ? "high" : "low");
+        out.put("capture.high_power_allowed", String.valueOf(profile.highPowerAllowed));
+        out.put("capture.high_rate", String.valueOf(highRate(profile)));
+        out.put("capture.high_power_sleep_ms", String.valueOf(highPowerSleep(profile)));
+        out.put("recorder.state", describeRecorder());
+        out.put("recorder.session", String.valueOf(getSessionId()));
+        out.put("recorder.buffer_bytes", String.valueOf(preparedBufferSize));
+        CaptureTuning current = tuning;
+        out.put("capture.tuning", current != null ? current.encode() : "");
+        out.put("errors.consecutive", String.valueOf(consecutiveErrors));
+        out.put("errors.total", String.valueOf(totalErrors));
+        out.put("retry.circuit", retryPolicy.getState().name());
+        out.put("retry.attempts", String.valueOf(retryPolicy.getAttempts()));
+        out.put("retry.circuit_trips", String.valueOf(retryPolicy.getCircuitTrips()));
+        holdQuality.export("hold", out);
+        out.put("silence.silenced", String.valueOf(silenceDetector.isSilenced()));
+        out.put("silence.zero_run_frames", String.valueOf(silenceDetector.getZeroRunFrames()));
+        out.put("silence.mean_energy", String.valueOf(silenceDetector.getMeanEnergy()));
+        out.put("silence.events", String.valueOf(silenceDetector.getSilencedCount()));
+    }
+
+    private void onRead(Recorder active, int read) {
+        if (consecutiveErrors > 0) {
+            int recovered = consecutiveErrors;
+            consecutiveErrors = 0;
+            listener.onRecovered(recovered);
+        }
+        retryPolicy.onSuccess();
+
+        long nowNanos = clock.elapsedNanos();
+        holdQuality.onFramesRead(read / 2, nowNanos);
+        int verdict = holdQuality.check(active, nowNanos);
+        if (verdict != holdVerdict) {
+            holdVerdict = verdict;
+            if ((verdict & HoldQualityMonitor.VERDICT_FROZEN) != 0) {
+                rebuildRequested = true;
+            }
+            listener.onHoldQualityChanged(verdict, currentRate);
+        }
+
+        int transition = silenceDetector.process(buffer, read);
+        if (transition != SilenceDetector.TRANSITION_NONE) {
+            listener.onSilenceTransition(transition);
+        }
+        if (silenceDetector.isSilenced()) {
+            maybeReacquireSilenced();
+        }
+
+        if (zeroing) {
+            Arrays.fill(buffer, (byte) 0);
+        }
+    }
+
+    private void maybeReacquireSilenced() {
+        long now = clock.elapsedMillis();
+        if (lastSilenceReacquireAt == 0 || now - lastSilenceReacquireAt >= SILENCE_REACQUIRE_INTERVAL) {
+            lastSilenceReacquireAt = now;
+            rebuildRequested = true;
+            listener.onEvent("Reacquiring silenced microphone");
+        }
+    }
+
+    private long handleError(int errorCode) {
+        try {
+            consecutiveErrors++;
+            totalErrors++;
+
+            RetryPolicy.ErrorClass errorClass = RetryPolicy.classify(errorCode);
+            long delay = retryPolicy.onFailure(errorCode, clock.elapsedMillis());
+            RetryPolicy.CircuitState circuitState = retryPolicy.getState();
+            listener.onError(errorCode, errorClass, consecutiveErrors, totalErrors, circuitState, delay);
+
+            releaseRecorder();
+
+            if (circuitState != RetryPolicy.CircuitState.OPEN) {
+                if (errorClass == RetryPolicy.ErrorClass.PERSISTENT && highPower) {
+                    switchToLowPower();
+                } else if (errorClass == RetryPolicy.ErrorClass.PERSISTENT || consecutiveErrors == MAX_CONSECUTIVE_ERRORS) {
+                    switchToHighPower();
+                }
+            }
+            return delay;
+        } catch (Exception e) {
+            listener.onFailure("Microphone error handling failed", e);
+            return lowPowerSleep(profile);
+        }
+    }
+
+    private int lowRate(PowerProfile active) {
+        CaptureTuning current = tuning;
+        if (current == null) {
+            return active.lowRate;
+        }
+        return active.acceptsTuning() ? current.sampleRate : Math.min(current.sampleRate, active.lowRate);
+    }
+
+    private int audioSource(PowerProfile active) {
+        CaptureTuning current = tuning;
+        return current != null && active.acceptsTuning() ? current.audioSource : active.audioSource;
+    }
+
+    private int bufferMultiplier(PowerProfile active) {
+        CaptureTuning current = tuning;
+        return current != null && active.acceptsTuning() ? current.bufferMultiplier : 1;
+    }
+
+    private int highRate(PowerProfile active) {
+        int limit = highRateLimit;
+        return limit > 0 ? Math.max(lowRate(active), Math.min(limit, active.highRate)) : active.highRate;
+    }
+
+    private int highPowerSleep(PowerProfile active) {
+        return Math.max(active.highPowerSleep, highPowerSleepFloor);
+    }
+
+    private int lowPowerSleep(PowerProfile active) {
+        CaptureTuning current = tuning;
+        return current != null ? Math.max(active.lowPowerSleep, current.loopSleep) : active.lowPowerSleep;
+    }
+
+    private void discardRecorderLocked() {
+        if (recorder != null) {
+            try {
+                if (recorder.isRecording()) {
+                    recorder.stop();
+                }
+                recorder.release();
+            } catch (Exception e) {
+                listener.onEvent("Recorder stop failed during mode switch");
+            }
+            recorder = null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.privacy.silentagent.core;
+
+import java.util.Map;
+
+public final class HoldQualityMonitor {
+
+    public static final int VERDICT_OK = 0;
+    public static final int VERDICT_OVERRUN = 1;
+    public static final int VERDICT_STALL = 1 << 1;
+    public static final int VERDICT_FROZEN = 1 << 2;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final long CHECK_INTERVAL_NANOS = 500000000L;
+    private static final long FROZEN_THRESHOLD_NANOS = 2000000000L;
+    private static final int STALL_PERCENT = 50;
+
+    private final long[] timestamp = new long[2];
+
+    private int sampleRate = 0;
+    private long bufferFrames = 0;
+    private long framesRead = 0;
+    private long lastCheckNanos = 0;
+    private long lastTimestampFrames = -1;
+    private long lastTimestampNanos = 0;
+    private long lastAdvanceNanos = 0;
+    private long lastReadNanos = 0;
+    private int verdict = VERDICT_OK;
+    private boolean supported = true;
+
+    private long checks = 0;
+    private long overruns = 0;
+    private long stalls = 0;
+    private long freezes = 0;
+    private long lostFrames = 0;
+
+    public synchronized void reset(int sampleRate, int bufferFrames, long nowNanos) {
+        this.sampleRate = sampleRate;
+        this.bufferFrames = bufferFrames;
+        this.framesRead = 0;
+        this.lastCheckNanos = nowNanos;
+        this.lastTimestampFrames = -1;
+        this.lastTimestampNanos = 0;
+        this.lastAdvanceNanos = nowNanos;
+        this.lastReadNanos = nowNanos;
+        this.verdict = VERDICT_OK;
+    }
+
+    public synchronized void onFramesRead(int frames, long nowNanos) {
+        if (frames > 0) {
+            framesRead += frames;
+            lastReadNanos = nowNanos;
+        }
+    }
+
+    public synchronized int check(Recorder activeRecorder, long nowNanos) {
+        if (sampleRate <= 0 || nowNanos - lastCheckNanos < CHECK_INTERVAL_NANOS) {
+            return verdict;
+        }
+        lastCheckNanos = nowNanos;
+        supported = activeRecorder.supportsTimestamps();
+        if (!supported) {
+            checks++;
+            return update(nowNanos - lastReadNanos >= FROZEN_THRESHOLD_NANOS ? VERDICT_FROZEN : VERDICT_OK);
+        }
+        if (!activeRecorder.getTimestamp(timestamp)) {
+            return verdict;
+        }
+        checks++;
+
+        long position = timestamp[0];
+        long positionNanos = timestamp[1];
+        int next = VERDICT_OK;
+
+        if (lastTimestampFrames >= 0) {
+            long delivered = position - lastTimestampFrames;
+            long elapsed = positionNanos - lastTimestampNanos;
+            if (delivered > 0) {
+                lastAdvanceNanos = nowNanos;
+                long expected = elapsed * sampleRate / NANOS_PER_SECOND;
+                if (elapsed > 0 && delivered * 100 < expected * STALL_PERCENT) {
+                    next |= VERDICT_STALL;
+                }
+            } else if (nowNanos - lastAdvanceNanos >= FROZEN_THRESHOLD_NANOS) {
+                next |= VERDICT_FROZEN;
+            }
+        }
+        lastTimestampFrames = position;
+        lastTimestampNanos = positionNanos;
+
+        if ((next & VERDICT_FROZEN) == 0) {
+            long produced = position + Math.max(0, nowNanos - positionNanos) * sampleRate / NANOS_PER_SECOND;
+            long backlog = produced - framesRead;
+            if (backlog > bufferFrames) {
+                next |= VERDICT_OVERRUN;
+                lostFrames += backlog - bufferFrames;
+                framesRead += backlog - bufferFrames;
+            }
+        }
+        return update(next);
+    }
+
+    private int update(int next) {
+        if ((next & VERDICT_OVERRUN) != 0) {
+            overruns++;
+        }
+        if ((next & VERDICT_STALL) != 0) {
+            stalls++;
+        }
+        if ((next & VERDICT_FROZEN) != 0) {
+            freezes++;
+        }
+        verdict = next;
+        return next;
+    }
+
+    public static String describe(int verdict) {
+        if (verdict == VERDICT_OK) {
+            return "ok";
+        }
+        StringBuilder builder = new StringBuilder();
+        if ((verdict & VERDICT_OVERRUN) != 0) {
+            builder.append("overrun");
+        }
+        if ((verdict & VERDICT_STALL) != 0) {
+            builder.append(builder.length() > 0 ? "+" : "").append("stall");
+        }
+        if ((verdict & VERDICT_FROZEN) != 0) {
+            builder.append(builder.length() > 0 ? "+" : "").append("frozen");
+        }
+        return builder.toString();
+    }
+
+    public synchronized void export(String prefix, Map<String, String> out) {
+        out.put(prefix + ".supported", String.valueOf(supported));
+        out.put(prefix + ".verdict", describe(verdict));
+        out.put(prefix + ".checks", String.valueOf(checks));
+        out.put(prefix + ".overruns", String.valueOf(overruns));
+        out.put(prefix + ".stalls", String.valueOf(stalls));
+        out.put(prefix + ".freezes", String.valueOf(freezes));
+        out.put(prefix + ".lost_frames", String.valueOf(lostFrames));
+    }
+}
@@ -0,0 +1,60 @@
+package com.privacy.silentagent.core;
+
+public enum PowerProfile {
+
+    PERFORMANCE(PowerProfile.AUDIO_SOURCE_VOICE_RECOGNITION, 8000, 44100, 10, 5, 30000, true, true),
+    BALANCED(PowerProfile.AUDIO_SOURCE_VOICE_RECOGNITION, 8000, 44100, 15, 5, 30000, true, true),
+    SAVER(PowerProfile.AUDIO_SOURCE_VOICE_RECOGNITION, 8000, 16000, 40, 15, 120000, false, true),
+    CRITICAL(PowerProfile.AUDIO_SOURCE_MIC, 8000, 8000, 80, 80, 300000, false, false);
+
+    public static final int AUDIO_SOURCE_MIC = 1;
+    public static final int AUDIO_SOURCE_VOICE_RECOGNITION = 6;
+
+    public static final int THERMAL_STATUS_NONE = 0;
+    public static final int THERMAL_STATUS_MODERATE = 2;
+    public static final int THERMAL_STATUS_SEVERE = 3;
+
+    private static final int LOW_BATTERY_PERCENT = 20;
+    private static final int CRITICAL_BATTERY_PERCENT = 5;
+
+    public final int audioSource;
+    public final int lowRate;
+    public final int highRate;
+    public final int lowPowerSleep;
+    public final int highPowerSleep;
+    public final long securityCheckInterval;
+    public final boolean wakeLocksAllowed;
+    public final boolean highPowerAllowed;
+
+    PowerProfile(int audioSource, int lowRate, int highRate, int lowPowerSleep, int highPowerSleep,
+                 long securityCheckInterval, boolean wakeLocksAllowed, boolean highPowerAllowed) {
+        this.audioSource = audioSource;
+        this.lowRate = lowRate;
+        this.highRate = highRate;
+        this.lowPowerSleep = lowPowerSleep;
+        this.highPowerSleep = highPowerSleep;
+        this.securityCheckInterval = securityCheckInterval;
+        this.wakeLocksAllowed = wakeLocksAllowed;
+        this.highPowerAllowed = highPowerAllowed;
+    }
+
+    public boolean acceptsTuning() {
+        return this == PERFORMANCE || this == BALANCED;
+    }
+
+    public static PowerProfile select(int batteryPercent, boolean charging, boolean powerSaveMode, int thermalStatus) {
+        if (thermalStatus >= THERMAL_STATUS_SEVERE) {
+            return CRITICAL;
+        }
+        if (!charging && batteryPercent >= 0 && batteryPercent <= CRITICAL_BATTERY_PERCENT) {
+            return CRITICAL;
+        }
+        if (thermalStatus >= THERMAL_STATUS_MODERATE || powerSaveMode) {
+            return SAVER;
+        }
+        if (!charging && batteryPercent >= 0 && batteryPercent <= LOW_BATTERY_PERCENT) {
+            return SAVER;
+        }
+        return charging ? PERFORMANCE : BALANCED;
+    }
+}
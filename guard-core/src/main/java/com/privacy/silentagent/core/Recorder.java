@@ -0,0 +1,22 @@
+package com.privacy.silentagent.core;
+
+public interface Recorder {
+
+    boolean start();
+
+    boolean isRecording();
+
+    int read(byte[] buffer, int offset, int length);
+
+    boolean supportsTimestamps();
+
+    boolean getTimestamp(long[] positionAndNanos);
+
+    int getSessionId();
+
+    String describe();
+
+    void stop();
+
+    void release();
+}
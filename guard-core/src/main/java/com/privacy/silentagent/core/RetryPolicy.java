@@ -0,0 +1,124 @@
+package com.privacy.silentagent.core;
+
+import java.util.Random;
+
+public final class RetryPolicy {
+
+    public static final int ERROR = -1;
+    public static final int ERROR_BAD_VALUE = -2;
+    public static final int ERROR_INVALID_OPERATION = -3;
+    public static final int ERROR_DEAD_OBJECT = -6;
+
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 8;
+    private static final long CIRCUIT_OPEN_DURATION = 30000;
+    private static final long CIRCUIT_MAX_OPEN_DURATION = 5 * 60 * 1000;
+    private static final int MAX_BACKOFF_EXPONENT = 16;
+
+    public enum ErrorClass {
+        TRANSIENT(50, 1000),
+        RECOVERABLE(250, 5000),
+        PERSISTENT(1000, 30000);
+
+        public final long baseDelay;
+        public final long maxDelay;
+
+        ErrorClass(long baseDelay, long maxDelay) {
+            this.baseDelay = baseDelay;
+            this.maxDelay = maxDelay;
+        }
+    }
+
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final Random random;
+    private CircuitState state = CircuitState.CLOSED;
+    private int attempts = 0;
+    private long openedAt = 0;
+    private long openDuration = CIRCUIT_OPEN_DURATION;
+    private int circuitTrips = 0;
+
+    public RetryPolicy(Random random) {
+        this.random = random;
+    }
+
+    public static ErrorClass classify(int errorCode) {
+        switch (errorCode) {
+            case ERROR_DEAD_OBJECT:
+                return ErrorClass.TRANSIENT;
+            case ERROR_BAD_VALUE:
+                return ErrorClass.PERSISTENT;
+            case ERROR_INVALID_OPERATION:
+            case ERROR:
+            default:
+                return ErrorClass.RECOVERABLE;
+        }
+    }
+
+    public synchronized long onFailure(int errorCode, long now) {
+        ErrorClass errorClass = classify(errorCode);
+        attempts++;
+
+        if (state == CircuitState.HALF_OPEN) {
+            openDuration = Math.min(openDuration * 2, CIRCUIT_MAX_OPEN_DURATION);
+            return trip(now);
+        }
+
+        if (state == CircuitState.OPEN) {
+            return remainingOpenTime(now);
+        }
+
+        if (attempts >= CIRCUIT_FAILURE_THRESHOLD) {
+            return trip(now);
+        }
+
+        return backoff(errorClass, attempts);
+    }
+
+    public synchronized void onSuccess() {
+        state = CircuitState.CLOSED;
+        attempts = 0;
+        openDuration = CIRCUIT_OPEN_DURATION;
+    }
+
+    public synchronized boolean allowAttempt(long now) {
+        if (state == CircuitState.OPEN && now - openedAt >= openDuration) {
+            state = CircuitState.HALF_OPEN;
+        }
+        return state != CircuitState.OPEN;
+    }
+
+    public synchronized long remainingOpenTime(long now) {
+        if (state != CircuitState.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openDuration - (now - openedAt));
+    }
+
+    public synchronized CircuitState getState() {
+        return state;
+    }
+
+    public synchronized int getAttempts() {
+        return attempts;
+    }
+
+    public synchronized int getCircuitTrips() {
+        return circuitTrips;
+    }
+
+    private long trip(long now) {
+        state = CircuitState.OPEN;
+        openedAt = now;
+        circuitTrips++;
+        return openDuration;
+    }
+
+    private long backoff(ErrorClass errorClass, int attempt) {
+        int exponent = Math.min(attempt - 1, MAX_BACKOFF_EXPONENT);
+        long ceiling = Math.min(errorClass.baseDelay << exponent, errorClass.maxDelay);
+        long half = ceiling / 2;
+        return half + (long) (random.nextDouble() * (ceiling - half));
+    }
+}
@@ -0,0 +1,77 @@
+package com.privacy.silentagent.core;
+
+public final class SilenceDetector {
+
+    public static final int TRANSITION_NONE = 0;
+    public static final int TRANSITION_SILENCED = 1;
+    public static final int TRANSITION_LIVE = 2;
+
+    private static final int SILENCE_WINDOW_MS = 500;
+    private static final int ENERGY_SHIFT = 4;
+
+    private long silenceThresholdFrames;
+    private long zeroRunFrames = 0;
+    private boolean silenced = false;
+    private long meanEnergy = 0;
+    private long silencedCount = 0;
+
+    public SilenceDetector(int sampleRate) {
+        reset(sampleRate);
+    }
+
+    public void reset(int sampleRate) {
+        silenceThresholdFrames = (long) sampleRate * SILENCE_WINDOW_MS / 1000;
+        zeroRunFrames = 0;
+        silenced = false;
+        meanEnergy = 0;
+    }
+
+    public int process(byte[] pcm16, int length) {
+        int frames = length >> 1;
+        if (frames <= 0) {
+            return TRANSITION_NONE;
+        }
+
+        int bits = 0;
+        long energy = 0;
+        for (int i = 0; i + 1 < length; i += 2) {
+            int sample = (pcm16[i] & 0xff) | (pcm16[i + 1] << 8);
+            bits |= sample;
+            energy += sample * sample;
+        }
+        meanEnergy += (energy / frames - meanEnergy) >> ENERGY_SHIFT;
+
+        if (bits == 0) {
+            zeroRunFrames += frames;
+            if (!silenced && zeroRunFrames >= silenceThresholdFrames) {
+                silenced = true;
+                silencedCount++;
+                return TRANSITION_SILENCED;
+            }
+            return TRANSITION_NONE;
+        }
+
+        zeroRunFrames = 0;
+        if (silenced) {
+            silenced = false;
+            return TRANSITION_LIVE;
+        }
+        return TRANSITION_NONE;
+    }
+
+    public boolean isSilenced() {
+        return silenced;
+    }
+
+    public long getZeroRunFrames() {
+        return zeroRunFrames;
+    }
+
+    public long getMeanEnergy() {
+        return meanEnergy;
+    }
+
+    public long getSilencedCount() {
+        return silencedCount;
+    }
+}
@@ -0,0 +1,316 @@
+package com.privacy.silentagent.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public final class GuardBench {
+
+    private static final int DEFAULT_ITERATIONS = 1000000;
+    private static final long STABILIZATION_DURATION = 10000;
+    private static final int RECOVERY_STEPS = 20000;
+    private static final long SEED = 0x5113A7L;
+
+    private GuardBench() {
+    }
+
+    private static final class Harness implements GuardEngine.Listener {
+
+        final VirtualClock clock = new VirtualClock(1000);
+        final SimulatedAudioHal hal;
+        final GuardEngine engine;
+        final List<String> failures = new ArrayList<>();
+
+        boolean held = false;
+        long firstHeldAt = -1;
+        long helds = 0;
+        long errors = 0;
+        long recoveries = 0;
+        long highPowerSwitches = 0;
+        long frozenVerdicts = 0;
+        long silencedTransitions = 0;
+        long liveTransitions = 0;
+        long modeChangedAt = 0;
+        long steps = 0;
+        long wallNanos = 0;
+
+        Harness(long seed) {
+            hal = new SimulatedAudioHal(clock, new Random(seed));
+            engine = new GuardEngine(hal, clock, new Random(seed + 1), this);
+            engine.start();
+        }
+
+        void run(int count) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                tick();
+            }
+            wallNanos += System.nanoTime() - start;
+        }
+
+        void tick() {
+            long delay = engine.step();
+            clock.advanceMillis(delay == GuardEngine.UNTIL_WOKEN ? 1 : Math.max(1, delay));
+            if (engine.isHighPower() && clock.elapsedMillis() - modeChangedAt >= STABILIZATION_DURATION) {
+                engine.switchToLowPower();
+            }
+            steps++;
+            if (hal.getLiveRecorders() > 1) {
+                failures.add("more than one live recorder at step " + steps);
+            }
+        }
+
+        void recover() {
+            hal.clearFaults();
+            run(RECOVERY_STEPS);
+            if (!held || !"recording".equals(engine.describeRecorder())) {
+                failures.add("not holding the microphone after recovery (" + engine.describeRecorder() + ")");
+            }
+        }
+
+        void expect(boolean condition, String message) {
+            if (!condition) {
+                failures.add(message);
+            }
+        }
+
+        void finish() {
+            engine.stop();
+            engine.releaseRecorder();
+            expect(hal.getLiveRecorders() == 0, "recorders leaked after shutdown: " + hal.getLiveRecorders());
+        }
+
+        @Override
+        public void onHeld(int sampleRate, int sessionId) {
+            held = true;
+            helds++;
+            if (firstHeldAt < 0) {
+                firstHeldAt = clock.elapsedMillis();
+            }
+        }
+
+        @Override
+        public void onReleased() {
+            held = false;
+        }
+
+        @Override
+        public void onRecovered(int consecutiveErrors) {
+            recoveries++;
+        }
+
+        @Override
+        public void onError(int errorCode, RetryPolicy.ErrorClass errorClass, int consecutiveErrors, int totalErrors,
+                            RetryPolicy.CircuitState circuitState, long retryDelay) {
+            errors++;
+        }
+
+        @Override
+        public void onModeChanged(boolean highPower, int sampleRate) {
+            modeChangedAt = clock.elapsedMillis();
+            if (highPower) {
+                highPowerSwitches++;
+            }
+        }
+
+        @Override
+        public void onHoldQualityChanged(int verdict, int sampleRate) {
+            if ((verdict & HoldQualityMonitor.VERDICT_FROZEN) != 0) {
+                frozenVerdicts++;
+            }
+        }
+
+        @Override
+        public void onSilenceTransition(int transition) {
+            if (transition == SilenceDetector.TRANSITION_SILENCED) {
+                silencedTransitions++;
+            } else {
+                liveTransitions++;
+            }
+        }
+
+        @Override
+        public void onEvent(String message) {
+        }
+
+        @Override
+        public void onFailure(String message, Exception e) {
+            failures.add(message + ": " + e);
+        }
+    }
+
+    public static void main(String[] args) {
+        int iterations = DEFAULT_ITERATIONS;
+        String only = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+                iterations = Integer.parseInt(args[++i]);
+            } else if ("--scenario".equals(args[i]) && i + 1 < args.length) {
+                only = args[++i];
+            }
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%-14s %10s %9s %9s %8s %8s %7s %6s %6s  %s",
+            "scenario", "steps", "ns/step", "virt_h", "opens", "errors", "trips", "high", "held", "result"));
+        int failed = 0;
+        String[] scenarios = {"steady", "read_errors", "dead_object", "silenced", "competing", "frozen",
+            "open_latency", "yield", "no_timestamps", "tuned", "tuned_critical"};
+        for (String scenario : scenarios) {
+            if (only != null && !only.equals(scenario)) {
+                continue;
+            }
+            Harness harness = new Harness(SEED + scenario.hashCode());
+            run(scenario, harness, iterations);
+            harness.finish();
+            report(scenario, harness);
+            if (!harness.failures.isEmpty()) {
+                failed++;
+            }
+        }
+
+        if (only == null || "silence_detector".equals(only)) {
+            benchSilenceDetector(iterations);
+        }
+
+        if (failed > 0) {
+            System.out.println(failed + " scenario(s) failed");
+            System.exit(1);
+        }
+    }
+
+    private static void run(String scenario, Harness h, int iterations) {
+        SimulatedAudioHal hal = h.hal;
+        switch (scenario) {
+            case "steady":
+                h.run(iterations);
+                h.expect(h.errors == 0, "errors on a healthy stream: " + h.errors);
+                h.expect(h.helds == 1, "recorder rebuilt on a healthy stream: " + h.helds);
+                break;
+            case "read_errors":
+                hal.setReadErrorRate(0.01, RetryPolicy.ERROR);
+                h.run(iterations);
+                h.expect(h.errors > 0 && h.recoveries > 0, "no error/recovery cycle observed");
+                h.recover();
+                break;
+            case "dead_object":
+                for (int done = 0; done < iterations; done += 5000) {
+                    hal.killActiveRecorders();
+                    h.run(Math.min(5000, iterations - done));
+                }
+                h.expect(hal.getDeadObjects() > 0, "dead objects never surfaced");
+                h.expect(h.helds > hal.getDeadObjects() / 2, "recorder not reacquired after dead objects");
+                h.recover();
+                break;
+            case "silenced":
+                for (int done = 0; done < iterations; done += 20000) {
+                    hal.setSilenced(true);
+                    h.run(Math.min(2000, iterations - done));
+                    hal.setSilenced(false);
+                    h.run(Math.max(0, Math.min(18000, iterations - done - 2000)));
+                }
+                h.expect(h.silencedTransitions > 0 && h.liveTransitions > 0, "silence transitions not detected");
+                h.recover();
+                break;
+            case "competing":
+                hal.setCompetingClient(true, true);
+                h.run(iterations / 2);
+                h.expect(h.engine.getRetryPolicy().getCircuitTrips() > 0, "circuit never opened while preempted");
+                hal.setCompetingClient(true, false);
+                h.run(iterations - iterations / 2);
+                h.recover();
+                break;
+            case "frozen":
+                for (int done = 0; done < iterations; done += 10000) {
+                    hal.setFrozen(true);
+                    h.run(Math.min(500, iterations - done));
+                    hal.setFrozen(false);
+                    h.run(Math.max(0, Math.min(9500, iterations - done - 500)));
+                }
+                h.expect(h.frozenVerdicts > 0, "frozen stream never detected");
+                h.recover();
+                break;
+            case "open_latency":
+                hal.setOpenLatencyMillis(40);
+                hal.failNextOpens(3);
+                h.run(iterations);
+                h.expect(h.firstHeldAt > 0, "microphone never held");
+                h.recover();
+                break;
+            case "yield":
+                for (int done = 0; done < iterations; done += 10000) {
+                    h.engine.yieldMicrophone();
+                    h.run(Math.min(2000, iterations - done));
+                    h.expect(hal.getLiveRecorders() == 0, "recorder still open while yielded");
+                    h.expect(h.engine.step() == GuardEngine.UNTIL_WOKEN, "yielded engine polls instead of waiting");
+                    h.engine.reclaimMicrophone();
+                    h.run(Math.max(0, Math.min(8000, iterations - done - 2000)));
+                }
+                h.recover();
+                break;
+            case "no_timestamps":
+                hal.setTimestampsSupported(false);
+                h.run(iterations / 2);
+                hal.setFrozen(true);
+                h.run(iterations - iterations / 2);
+                h.expect(h.frozenVerdicts > 0, "read-progress fallback did not flag the frozen stream");
+                h.recover();
+                break;
+            case "tuned":
+                CaptureTuning tuning = new CaptureTuning(PowerProfile.AUDIO_SOURCE_MIC, 16000, 4, 40);
+                h.run(iterations / 2);
+                h.engine.setTuning(tuning);
+                h.run(iterations - iterations / 2);
+                h.expect(h.engine.getCurrentRate() == tuning.sampleRate, "tuned rate not applied");
+                h.expect(h.engine.getPreparedBufferSize() == hal.getMinBufferSize(tuning.sampleRate) * 4,
+                    "tuned buffer not applied: " + h.engine.getPreparedBufferSize());
+                h.expect(h.engine.step() >= tuning.loopSleep, "tuned loop sleep not applied");
+                h.expect(h.helds == 2, "tuning should rebuild the recorder exactly once: " + h.helds);
+                break;
+            case "tuned_critical":
+                h.engine.setTuning(new CaptureTuning(PowerProfile.AUDIO_SOURCE_VOICE_RECOGNITION, 16000, 4, 5));
+                h.run(iterations / 2);
+                h.engine.applyProfile(PowerProfile.CRITICAL);
+                h.run(iterations - iterations / 2);
+                h.expect(h.engine.getCurrentRate() == PowerProfile.CRITICAL.lowRate,
+                    "critical profile left the tuned rate in place: " + h.engine.getCurrentRate());
+                h.expect(hal.getLastAudioSource() == PowerProfile.AUDIO_SOURCE_MIC,
+                    "critical profile opened audio source " + hal.getLastAudioSource());
+                h.expect(hal.getLastBufferSize() == hal.getMinBufferSize(PowerProfile.CRITICAL.lowRate),
+                    "critical profile kept the tuned buffer: " + hal.getLastBufferSize());
+                h.expect(h.engine.step() >= PowerProfile.CRITICAL.lowPowerSleep, "critical loop sleep shortened");
+                break;
+            default:
+                throw new IllegalArgumentException(scenario);
+        }
+    }
+
+    private static void report(String scenario, Harness h) {
+        double nsPerStep = h.steps > 0 ? (double) h.wallNanos / h.steps : 0;
+        double virtualHours = h.clock.elapsedMillis() / 3600000.0;
+        System.out.println(String.format(Locale.ROOT, "%-14s %10d %9.1f %9.1f %8d %8d %7d %6d %6s  %s",
+            scenario, h.steps, nsPerStep, virtualHours, h.hal.getOpens(), h.errors,
+            h.engine.getRetryPolicy().getCircuitTrips(), h.highPowerSwitches, h.firstHeldAt >= 0 ? "yes" : "no",
+            h.failures.isEmpty() ? "ok" : "FAIL " + h.failures.get(0)));
+    }
+
+    private static void benchSilenceDetector(int iterations) {
+        SilenceDetector detector = new SilenceDetector(PowerProfile.BALANCED.lowRate);
+        byte[] live = new byte[1024];
+        byte[] zeros = new byte[1024];
+        for (int i = 0; i < live.length; i++) {
+            live[i] = (byte) (i * 31 + 7);
+        }
+        int sink = 0;
+        for (int i = 0; i < 20000; i++) {
+            sink += detector.process((i & 1) == 0 ? live : zeros, live.length);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += detector.process((i & 63) == 0 ? zeros : live, live.length);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format(Locale.ROOT, "silence_detector %d x 512 frames: %.1f ns/read (sink %d)",
+            iterations, (double) elapsed / iterations, sink));
+    }
+}
@@ -0,0 +1,320 @@
+package com.privacy.silentagent.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class GuardStress {
+
+    private static final int DEFAULT_ROUNDS = 2000;
+    private static final int DEFAULT_THREADS = 8;
+    private static final int OPS_PER_ROUND = 64;
+    private static final long SHUTDOWN_BUDGET = 2000;
+    private static final long MAX_VIRTUAL_ADVANCE = 20;
+    private static final long ROUND_TIMEOUT = 30000;
+    private static final long SEED = 0x5113A7L;
+
+    private GuardStress() {
+    }
+
+    private static final class Lifecycle implements GuardEngine.Listener {
+
+        final VirtualClock clock = new VirtualClock(1000);
+        final SimulatedAudioHal hal;
+        final GuardEngine engine;
+        final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+
+        final AtomicLong starts = new AtomicLong();
+        final AtomicLong stops = new AtomicLong();
+        final AtomicLong steps = new AtomicLong();
+        final AtomicLong helds = new AtomicLong();
+        final AtomicLong modeChanges = new AtomicLong();
+        final AtomicLong yields = new AtomicLong();
+        final AtomicInteger workersSpawned = new AtomicInteger();
+        final AtomicInteger workersExited = new AtomicInteger();
+
+        private Worker worker;
+
+        Lifecycle(long seed) {
+            hal = new SimulatedAudioHal(clock, new Random(seed));
+            engine = new GuardEngine(hal, clock, new Random(seed + 1), this);
+        }
+
+        synchronized void start() {
+            if (worker != null) {
+                return;
+            }
+            long generation = engine.start();
+            worker = new Worker(generation);
+            workersSpawned.incrementAndGet();
+            worker.start();
+            starts.incrementAndGet();
+        }
+
+        synchronized void stop() {
+            Worker active = worker;
+            if (active == null) {
+                return;
+            }
+            worker = null;
+            active.stopped = true;
+            engine.stop();
+            try {
+                active.join(SHUTDOWN_BUDGET);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (active.isAlive()) {
+                failures.add("capture worker outlived the " + SHUTDOWN_BUDGET + "ms shutdown budget");
+            } else {
+                engine.releaseRecorder();
+            }
+            stops.incrementAndGet();
+        }
+
+        void expect(boolean condition, String message) {
+            if (!condition) {
+                failures.add(message);
+            }
+        }
+
+        void checkStopped(String when) {
+            expect(workersSpawned.get() == workersExited.get(),
+                "leaked capture threads " + when + ": " + (workersSpawned.get() - workersExited.get()));
+            expect(hal.getLiveRecorders() == 0, "live recorders " + when + ": " + hal.getLiveRecorders());
+            expect(!engine.isHolding(), "engine still references a recorder " + when);
+
+            PowerProfile profile = engine.getProfile();
+            int rate = engine.getCurrentRate();
+            expect(!engine.isHighPower() || profile.highPowerAllowed,
+                "high power mode under " + profile.name() + " " + when);
+            expect(rate == profile.lowRate || (engine.isHighPower() && rate == engine.getHighRate()),
+                "rate " + rate + "Hz inconsistent with " + profile.name() + "/" + engine.isHighPower() + " " + when);
+        }
+
+        private final class Worker extends Thread {
+
+            private final long generation;
+            volatile boolean stopped = false;
+
+            Worker(long generation) {
+                super("stress-capture-" + generation);
+                this.generation = generation;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    while (!stopped) {
+                        long delay = engine.step();
+                        steps.incrementAndGet();
+                        clock.advanceMillis(Math.min(MAX_VIRTUAL_ADVANCE, Math.max(1, delay)));
+                        if (delay > 0) {
+                            Thread.yield();
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    failures.add("capture worker crashed: " + e);
+                } finally {
+                    engine.releaseRecorder(generation);
+                    workersExited.incrementAndGet();
+                }
+            }
+        }
+
+        @Override
+        public void onHeld(int sampleRate, int sessionId) {
+            helds.incrementAndGet();
+            expect(!engine.isStopped(), "recorder " + sessionId + " acquired while the engine was stopped");
+            expect(!engine.isYielded(), "recorder " + sessionId + " acquired while yielded");
+        }
+
+        @Override
+        public void onReleased() {
+        }
+
+        @Override
+        public void onRecovered(int consecutiveErrors) {
+        }
+
+        @Override
+        public void onError(int errorCode, RetryPolicy.ErrorClass errorClass, int consecutiveErrors, int totalErrors,
+                            RetryPolicy.CircuitState circuitState, long retryDelay) {
+        }
+
+        @Override
+        public void onModeChanged(boolean highPower, int sampleRate) {
+            modeChanges.incrementAndGet();
+        }
+
+        @Override
+        public void onHoldQualityChanged(int verdict, int sampleRate) {
+        }
+
+        @Override
+        public void onSilenceTransition(int transition) {
+        }
+
+        @Override
+        public void onEvent(String message) {
+        }
+
+        @Override
+        public void onFailure(String message, Exception e) {
+            failures.add(message + ": " + e);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int rounds = DEFAULT_ROUNDS;
+        int threads = DEFAULT_THREADS;
+        long seed = SEED;
+        for (int i = 0; i < args.length; i++) {
+            if ("--rounds".equals(args[i]) && i + 1 < args.length) {
+                rounds = Integer.parseInt(args[++i]);
+            } else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--seed".equals(args[i]) && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            }
+        }
+
+        final Lifecycle lifecycle = new Lifecycle(seed);
+        final AtomicInteger completedRounds = new AtomicInteger();
+        final AtomicLong operations = new AtomicLong();
+        final CyclicBarrier barrier = new CyclicBarrier(threads, new Runnable() {
+            @Override
+            public void run() {
+                lifecycle.stop();
+                lifecycle.checkStopped("after round " + completedRounds.get());
+                lifecycle.hal.clearFaults();
+                completedRounds.incrementAndGet();
+            }
+        });
+
+        List<Thread> mutators = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final Random random = new Random(seed * 31 + t);
+            final int totalRounds = rounds;
+            Thread mutator = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int round = 0; round < totalRounds; round++) {
+                            for (int op = 0; op < OPS_PER_ROUND; op++) {
+                                mutate(lifecycle, random);
+                                operations.incrementAndGet();
+                            }
+                            barrier.await(ROUND_TIMEOUT, TimeUnit.MILLISECONDS);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (BrokenBarrierException | TimeoutException e) {
+                        lifecycle.failures.add("round barrier broken, possible deadlock: " + e);
+                    } catch (RuntimeException e) {
+                        lifecycle.failures.add("mutator crashed: " + e);
+                    }
+                }
+            }, "stress-mutator-" + t);
+            mutators.add(mutator);
+        }
+
+        long start = System.nanoTime();
+        for (Thread mutator : mutators) {
+            mutator.start();
+        }
+        for (Thread mutator : mutators) {
+            mutator.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        lifecycle.stop();
+        lifecycle.checkStopped("at exit");
+        lifecycle.expect(lifecycle.hal.getMaxLiveRecorders() <= 1,
+            "two or more recorders were live at once: peak " + lifecycle.hal.getMaxLiveRecorders());
+
+        double seconds = elapsed / 1e9;
+        System.out.println(String.format(Locale.ROOT,
+            "threads=%d rounds=%d ops=%d elapsed=%.2fs", threads, completedRounds.get(), operations.get(), seconds));
+        System.out.println(String.format(Locale.ROOT,
+            "lifecycle: %d starts %d stops (%.0f cycles/s), %d mode changes, %d yields",
+            lifecycle.starts.get(), lifecycle.stops.get(), lifecycle.stops.get() / seconds,
+            lifecycle.modeChanges.get(), lifecycle.yields.get()));
+        System.out.println(String.format(Locale.ROOT,
+            "capture: %d steps (%.0f steps/s), %d opens, %d holds, peak live recorders %d, workers %d/%d exited",
+            lifecycle.steps.get(), lifecycle.steps.get() / seconds, lifecycle.hal.getOpens(), lifecycle.helds.get(),
+            lifecycle.hal.getMaxLiveRecorders(), lifecycle.workersExited.get(), lifecycle.workersSpawned.get()));
+
+        if (!lifecycle.failures.isEmpty()) {
+            System.out.println(lifecycle.failures.size() + " invariant violation(s), first: " + lifecycle.failures.get(0));
+            System.exit(1);
+        }
+        System.out.println("ok");
+    }
+
+    private static void mutate(Lifecycle lifecycle, Random random) {
+        GuardEngine engine = lifecycle.engine;
+        switch (random.nextInt(13)) {
+            case 0:
+                lifecycle.start();
+                break;
+            case 1:
+                if (random.nextInt(4) == 0) {
+                    lifecycle.stop();
+                }
+                break;
+            case 2:
+                engine.switchToHighPower();
+                break;
+            case 3:
+                engine.switchToLowPower();
+                break;
+            case 4:
+                PowerProfile[] profiles = PowerProfile.values();
+                engine.applyProfile(profiles[random.nextInt(profiles.length)]);
+                break;
+            case 5:
+                if (engine.yieldMicrophone()) {
+                    lifecycle.yields.incrementAndGet();
+                }
+                break;
+            case 6:
+                engine.reclaimMicrophone();
+                break;
+            case 7:
+                engine.requestRebuild();
+                break;
+            case 8:
+                engine.restoreRate(random.nextBoolean() ? engine.getProfile().lowRate : engine.getHighRate());
+                break;
+            case 9:
+                if (random.nextInt(8) == 0) {
+                    lifecycle.hal.killActiveRecorders();
+                } else {
+                    lifecycle.hal.failNextReads(random.nextInt(3), RetryPolicy.ERROR_DEAD_OBJECT);
+                }
+                break;
+            case 10:
+                lifecycle.hal.failNextOpens(random.nextInt(2));
+                break;
+            case 11:
+                int[] limits = {0, 16000, 22050};
+                engine.setHighPowerLimits(limits[random.nextInt(limits.length)], random.nextInt(3) * 10);
+                break;
+            default:
+                Map<String, String> out = new HashMap<>();
+                engine.export(out);
+                break;
+        }
+    }
+}
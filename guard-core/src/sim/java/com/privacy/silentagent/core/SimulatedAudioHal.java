@@ -0,0 +1,301 @@
+package com.privacy.silentagent.core;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class SimulatedAudioHal implements AudioHal {
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final int MIN_BUFFER_MS = 40;
+    private static final byte LIVE_SAMPLE = 0x21;
+
+    private final VirtualClock clock;
+    private final Random random;
+
+    private volatile long openLatencyNanos = 0;
+    private volatile long readLatencyNanos = 0;
+    private final AtomicInteger failOpens = new AtomicInteger();
+    private final AtomicInteger pendingReadErrors = new AtomicInteger();
+    private volatile int pendingReadErrorCode = RetryPolicy.ERROR;
+    private volatile double readErrorRate = 0;
+    private volatile int readErrorCode = RetryPolicy.ERROR;
+    private volatile boolean silenced = false;
+    private volatile boolean frozen = false;
+    private volatile boolean competing = false;
+    private volatile boolean competitorPreempts = false;
+    private volatile boolean timestampsSupported = true;
+
+    private final AtomicInteger nextSessionId = new AtomicInteger(1);
+    private final AtomicInteger liveRecorders = new AtomicInteger();
+    private final AtomicInteger maxLiveRecorders = new AtomicInteger();
+    private final AtomicLong opens = new AtomicLong();
+    private final AtomicLong failedOpens = new AtomicLong();
+    private final AtomicLong releases = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong readErrors = new AtomicLong();
+    private final AtomicLong deadObjects = new AtomicLong();
+    private volatile long generation = 0;
+    private volatile int lastAudioSource = -1;
+    private volatile int lastBufferSize = 0;
+
+    public SimulatedAudioHal(VirtualClock clock, Random random) {
+        this.clock = clock;
+        this.random = random;
+    }
+
+    @Override
+    public int getMinBufferSize(int sampleRate) {
+        if (sampleRate <= 0) {
+            return RetryPolicy.ERROR_BAD_VALUE;
+        }
+        return sampleRate * MIN_BUFFER_MS / 1000 * 2;
+    }
+
+    @Override
+    public Recorder open(int audioSource, int sampleRate, int bufferSize) {
+        clock.advanceNanos(openLatencyNanos);
+        opens.incrementAndGet();
+        lastAudioSource = audioSource;
+        lastBufferSize = bufferSize;
+        if (failOpens.get() > 0 && failOpens.decrementAndGet() >= 0) {
+            failedOpens.incrementAndGet();
+            return null;
+        }
+        int live = liveRecorders.incrementAndGet();
+        while (true) {
+            int peak = maxLiveRecorders.get();
+            if (live <= peak || maxLiveRecorders.compareAndSet(peak, live)) {
+                break;
+            }
+        }
+        return new SimulatedRecorder(sampleRate, bufferSize / 2, nextSessionId.getAndIncrement());
+    }
+
+    public void setOpenLatencyMillis(long millis) {
+        openLatencyNanos = millis * 1000000L;
+    }
+
+    public void setReadLatencyNanos(long nanos) {
+        readLatencyNanos = nanos;
+    }
+
+    public void failNextOpens(int count) {
+        failOpens.set(count);
+    }
+
+    public void failNextReads(int count, int errorCode) {
+        pendingReadErrorCode = errorCode;
+        pendingReadErrors.set(count);
+    }
+
+    public void setReadErrorRate(double rate, int errorCode) {
+        readErrorRate = rate;
+        readErrorCode = errorCode;
+    }
+
+    public void killActiveRecorders() {
+        generation++;
+    }
+
+    public void setSilenced(boolean silenced) {
+        this.silenced = silenced;
+    }
+
+    public void setFrozen(boolean frozen) {
+        this.frozen = frozen;
+    }
+
+    public void setCompetingClient(boolean active, boolean preempts) {
+        competing = active;
+        competitorPreempts = preempts;
+    }
+
+    public void setTimestampsSupported(boolean supported) {
+        timestampsSupported = supported;
+    }
+
+    public void clearFaults() {
+        failOpens.set(0);
+        pendingReadErrors.set(0);
+        readErrorRate = 0;
+        silenced = false;
+        frozen = false;
+        competing = false;
+        competitorPreempts = false;
+    }
+
+    public int getLiveRecorders() {
+        return liveRecorders.get();
+    }
+
+    public int getMaxLiveRecorders() {
+        return maxLiveRecorders.get();
+    }
+
+    public long getOpens() {
+        return opens.get();
+    }
+
+    public long getFailedOpens() {
+        return failedOpens.get();
+    }
+
+    public long getReleases() {
+        return releases.get();
+    }
+
+    public long getReads() {
+        return reads.get();
+    }
+
+    public long getReadErrors() {
+        return readErrors.get();
+    }
+
+    public long getDeadObjects() {
+        return deadObjects.get();
+    }
+
+    public int getLastAudioSource() {
+        return lastAudioSource;
+    }
+
+    public int getLastBufferSize() {
+        return lastBufferSize;
+    }
+
+    private final class SimulatedRecorder implements Recorder {
+
+        private final int sampleRate;
+        private final long bufferFrames;
+        private final int sessionId;
+        private final long bornGeneration = generation;
+        private boolean recording = false;
+        private boolean released = false;
+        private long startNanos;
+        private long consumedFrames;
+        private long frozenFrames = -1;
+        private long frozenNanos;
+
+        SimulatedRecorder(int sampleRate, long bufferFrames, int sessionId) {
+            this.sampleRate = sampleRate;
+            this.bufferFrames = bufferFrames;
+            this.sessionId = sessionId;
+        }
+
+        @Override
+        public synchronized boolean start() {
+            if (released || (competing && competitorPreempts)) {
+                return false;
+            }
+            recording = true;
+            startNanos = clock.elapsedNanos();
+            consumedFrames = 0;
+            return true;
+        }
+
+        @Override
+        public synchronized boolean isRecording() {
+            if (competing && competitorPreempts) {
+                recording = false;
+            }
+            return recording && !released;
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int length) {
+            clock.advanceNanos(readLatencyNanos);
+            reads.incrementAndGet();
+            if (released || !recording) {
+                readErrors.incrementAndGet();
+                return RetryPolicy.ERROR_INVALID_OPERATION;
+            }
+            if (bornGeneration != generation) {
+                readErrors.incrementAndGet();
+                deadObjects.incrementAndGet();
+                return RetryPolicy.ERROR_DEAD_OBJECT;
+            }
+            if (pendingReadErrors.get() > 0 && pendingReadErrors.decrementAndGet() >= 0) {
+                readErrors.incrementAndGet();
+                return pendingReadErrorCode;
+            }
+            if (readErrorRate > 0 && random.nextDouble() < readErrorRate) {
+                readErrors.incrementAndGet();
+                return readErrorCode;
+            }
+
+            long produced = produced();
+            long available = produced - consumedFrames;
+            if (available > bufferFrames) {
+                consumedFrames = produced - bufferFrames;
+                available = bufferFrames;
+            }
+            int frames = (int) Math.min(available, length / 2);
+            if (frames <= 0) {
+                return 0;
+            }
+            consumedFrames += frames;
+            Arrays.fill(buffer, offset, offset + frames * 2, silenced || competing ? 0 : LIVE_SAMPLE);
+            return frames * 2;
+        }
+
+        @Override
+        public boolean supportsTimestamps() {
+            return timestampsSupported;
+        }
+
+        @Override
+        public synchronized boolean getTimestamp(long[] positionAndNanos) {
+            if (!timestampsSupported || !recording) {
+                return false;
+            }
+            long now = clock.elapsedNanos();
+            positionAndNanos[0] = produced();
+            positionAndNanos[1] = frozenFrames >= 0 ? frozenNanos : now;
+            return true;
+        }
+
+        @Override
+        public int getSessionId() {
+            return sessionId;
+        }
+
+        @Override
+        public synchronized String describe() {
+            if (released) {
+                return "released";
+            }
+            return recording ? "recording" : "stopped";
+        }
+
+        @Override
+        public synchronized void stop() {
+            recording = false;
+        }
+
+        @Override
+        public synchronized void release() {
+            if (!released) {
+                released = true;
+                recording = false;
+                liveRecorders.decrementAndGet();
+                releases.incrementAndGet();
+            }
+        }
+
+        private long produced() {
+            long now = clock.elapsedNanos();
+            if (frozen) {
+                if (frozenFrames < 0) {
+                    frozenFrames = (now - startNanos) * sampleRate / NANOS_PER_SECOND;
+                    frozenNanos = now;
+                }
+                return frozenFrames;
+            }
+            frozenFrames = -1;
+            return (now - startNanos) * sampleRate / NANOS_PER_SECOND;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.privacy.silentagent.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class VirtualClock implements Clock {
+
+    private final AtomicLong nanos;
+
+    public VirtualClock(long startMillis) {
+        this.nanos = new AtomicLong(startMillis * 1000000L);
+    }
+
+    @Override
+    public long elapsedMillis() {
+        return nanos.get() / 1000000L;
+    }
+
+    @Override
+    public long elapsedNanos() {
+        return nanos.get();
+    }
+
+    public void advanceMillis(long millis) {
+        nanos.addAndGet(Math.max(0, millis) * 1000000L);
+    }
+
+    public void advanceNanos(long delta) {
+        nanos.addAndGet(Math.max(0, delta));
+    }
+}
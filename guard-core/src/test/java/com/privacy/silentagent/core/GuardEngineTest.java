@@ -0,0 +1,310 @@
+package com.privacy.silentagent.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class GuardEngineTest {
+
+    private static final long SEED = 0x46L;
+
+    private static final class Harness implements GuardEngine.Listener {
+
+        final VirtualClock clock = new VirtualClock(1000);
+        final SimulatedAudioHal hal = new SimulatedAudioHal(clock, new Random(SEED));
+        final GuardEngine engine;
+
+        volatile int helds = 0;
+        volatile int heldWhileStopped = 0;
+        int lastHeldRate = 0;
+        int errors = 0;
+        int lastErrorCode = 0;
+
+        Harness() {
+            this(null);
+        }
+
+        Harness(AudioHal wrapper) {
+            engine = new GuardEngine(wrapper != null ? wrapper : hal, clock, new Random(SEED + 1), this);
+            engine.start();
+        }
+
+        long step() {
+            long delay = engine.step();
+            clock.advanceMillis(delay == GuardEngine.UNTIL_WOKEN ? 1 : Math.max(1, delay));
+            return delay;
+        }
+
+        void run(int steps) {
+            for (int i = 0; i < steps; i++) {
+                step();
+            }
+        }
+
+        @Override
+        public void onHeld(int sampleRate, int sessionId) {
+            if (engine.isStopped()) {
+                heldWhileStopped++;
+            }
+            helds++;
+            lastHeldRate = sampleRate;
+        }
+
+        @Override
+        public void onReleased() {
+        }
+
+        @Override
+        public void onRecovered(int consecutiveErrors) {
+        }
+
+        @Override
+        public void onError(int errorCode, RetryPolicy.ErrorClass errorClass, int consecutiveErrors, int totalErrors,
+                            RetryPolicy.CircuitState circuitState, long retryDelay) {
+            errors++;
+            lastErrorCode = errorCode;
+        }
+
+        @Override
+        public void onModeChanged(boolean highPower, int sampleRate) {
+        }
+
+        @Override
+        public void onHoldQualityChanged(int verdict, int sampleRate) {
+        }
+
+        @Override
+        public void onSilenceTransition(int transition) {
+        }
+
+        @Override
+        public void onEvent(String message) {
+        }
+
+        @Override
+        public void onFailure(String message, Exception e) {
+            throw new AssertionError(message, e);
+        }
+    }
+
+    @Test
+    public void badValueInLowPowerEscalatesToHighRate() {
+        Harness h = new Harness();
+        h.run(3);
+        assertEquals(PowerProfile.BALANCED.lowRate, h.lastHeldRate);
+
+        h.hal.failNextReads(1, RetryPolicy.ERROR_BAD_VALUE);
+        h.step();
+        assertEquals(RetryPolicy.ERROR_BAD_VALUE, h.lastErrorCode);
+        assertTrue(h.engine.isHighPower());
+        assertEquals(PowerProfile.BALANCED.highRate, h.lastHeldRate);
+    }
+
+    @Test
+    public void badValueInHighPowerFallsBackToLowRate() {
+        Harness h = new Harness();
+        h.run(3);
+        assertTrue(h.engine.switchToHighPower());
+        assertEquals(PowerProfile.BALANCED.highRate, h.lastHeldRate);
+
+        h.hal.failNextReads(1, RetryPolicy.ERROR_BAD_VALUE);
+        h.step();
+        assertFalse(h.engine.isHighPower());
+        assertEquals(PowerProfile.BALANCED.lowRate, h.engine.getCurrentRate());
+
+        h.run(3);
+        assertEquals(PowerProfile.BALANCED.lowRate, h.lastHeldRate);
+        assertEquals("recording", h.engine.describeRecorder());
+        assertEquals(1, h.hal.getLiveRecorders());
+    }
+
+    @Test
+    public void yieldReleasesAndReclaimReacquires() {
+        Harness h = new Harness();
+        h.run(3);
+        assertTrue(h.engine.isHolding());
+        assertEquals(1, h.helds);
+
+        assertTrue(h.engine.yieldMicrophone());
+        assertFalse(h.engine.yieldMicrophone());
+        assertEquals(GuardEngine.UNTIL_WOKEN, h.step());
+        assertEquals(GuardEngine.UNTIL_WOKEN, h.step());
+        assertFalse(h.engine.isHolding());
+        assertEquals(0, h.hal.getLiveRecorders());
+        assertEquals(1, h.helds);
+
+        assertTrue(h.engine.reclaimMicrophone());
+        assertFalse(h.engine.reclaimMicrophone());
+        h.step();
+        assertTrue(h.engine.isHolding());
+        assertEquals(2, h.helds);
+        assertEquals(RetryPolicy.CircuitState.CLOSED, h.engine.getRetryPolicy().getState());
+        assertEquals(0, h.engine.getConsecutiveErrors());
+    }
+
+    @Test
+    public void consecutiveErrorsEscalateToHighPower() {
+        Harness h = new Harness();
+        h.run(3);
+        h.hal.failNextReads(GuardEngine.MAX_CONSECUTIVE_ERRORS, RetryPolicy.ERROR);
+        for (int i = 0; i < 100 && h.errors < GuardEngine.MAX_CONSECUTIVE_ERRORS; i++) {
+            assertFalse("escalated after " + h.errors + " errors", h.engine.isHighPower());
+            h.step();
+        }
+        assertEquals(GuardEngine.MAX_CONSECUTIVE_ERRORS, h.errors);
+        assertTrue(h.engine.isHighPower());
+        assertEquals(PowerProfile.BALANCED.highRate, h.lastHeldRate);
+        assertEquals(RetryPolicy.CircuitState.CLOSED, h.engine.getRetryPolicy().getState());
+
+        h.run(3);
+        assertEquals(0, h.engine.getConsecutiveErrors());
+        assertEquals("recording", h.engine.describeRecorder());
+    }
+
+    @Test
+    public void tuningRebuildsRecorderOnce() {
+        Harness h = new Harness();
+        h.run(3);
+        CaptureTuning tuning = new CaptureTuning(PowerProfile.AUDIO_SOURCE_MIC, 16000, 4, 40);
+
+        h.engine.setTuning(tuning);
+        h.run(3);
+        assertEquals(2, h.helds);
+        assertEquals(tuning.sampleRate, h.lastHeldRate);
+        assertEquals(PowerProfile.AUDIO_SOURCE_MIC, h.hal.getLastAudioSource());
+        assertEquals(h.hal.getMinBufferSize(tuning.sampleRate) * 4, h.hal.getLastBufferSize());
+        assertTrue(h.engine.step() >= tuning.loopSleep);
+
+        h.engine.setTuning(new CaptureTuning(PowerProfile.AUDIO_SOURCE_MIC, 16000, 4, 40));
+        h.run(3);
+        assertEquals(2, h.helds);
+
+        h.engine.setTuning(null);
+        h.run(3);
+        assertEquals(3, h.helds);
+        assertEquals(PowerProfile.BALANCED.lowRate, h.lastHeldRate);
+        assertEquals(1, h.hal.getLiveRecorders());
+    }
+
+    @Test(timeout = 10000)
+    public void stopDuringReadEndsTheStepWithoutReacquiring() throws Exception {
+        GatedHal gated = new GatedHal();
+        final Harness h = new Harness(gated);
+        gated.delegate = h.hal;
+        h.run(3);
+        assertTrue(h.engine.isHolding());
+
+        gated.gate();
+        final long[] result = {-1};
+        Thread capture = new Thread(() -> result[0] = h.engine.step());
+        capture.start();
+        assertTrue(gated.readEntered.await(5, TimeUnit.SECONDS));
+
+        Thread stopper = new Thread(() -> h.engine.stop());
+        stopper.start();
+        Thread.sleep(20);
+        gated.proceed.countDown();
+        stopper.join(5000);
+        capture.join(5000);
+        assertFalse(stopper.isAlive());
+        assertFalse(capture.isAlive());
+
+        assertTrue(result[0] >= 0);
+        assertEquals(0, h.errors);
+        assertTrue(h.engine.isStopped());
+        assertFalse(h.engine.isHighPower());
+        assertEquals("stopped", h.engine.describeRecorder());
+
+        long opens = h.hal.getOpens();
+        assertEquals(0, h.engine.step());
+        assertEquals(opens, h.hal.getOpens());
+        assertEquals(0, h.heldWhileStopped);
+
+        h.engine.releaseRecorder();
+        assertEquals(0, h.hal.getLiveRecorders());
+    }
+
+    private static final class GatedHal implements AudioHal {
+
+        volatile AudioHal delegate;
+        volatile boolean gated = false;
+        final CountDownLatch readEntered = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+
+        void gate() {
+            gated = true;
+        }
+
+        @Override
+        public int getMinBufferSize(int sampleRate) {
+            return delegate.getMinBufferSize(sampleRate);
+        }
+
+        @Override
+        public Recorder open(int audioSource, int sampleRate, int bufferSize) {
+            final Recorder recorder = delegate.open(audioSource, sampleRate, bufferSize);
+            if (recorder == null) {
+                return null;
+            }
+            return new Recorder() {
+                @Override
+                public boolean start() {
+                    return recorder.start();
+                }
+
+                @Override
+                public boolean isRecording() {
+                    return recorder.isRecording();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    if (gated) {
+                        readEntered.countDown();
+                        try {
+                            proceed.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return recorder.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean supportsTimestamps() {
+                    return recorder.supportsTimestamps();
+                }
+
+                @Override
+                public boolean getTimestamp(long[] positionAndNanos) {
+                    return recorder.getTimestamp(positionAndNanos);
+                }
+
+                @Override
+                public int getSessionId() {
+                    return recorder.getSessionId();
+                }
+
+                @Override
+                public String describe() {
+                    return recorder.describe();
+                }
+
+                @Override
+                public void stop() {
+                    recorder.stop();
+                }
+
+                @Override
+                public void release() {
+                    recorder.release();
+                }
+            };
+        }
+    }
+}
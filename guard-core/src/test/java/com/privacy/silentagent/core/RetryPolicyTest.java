@@ -0,0 +1,135 @@
+package com.privacy.silentagent.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+    private static final long SEED = 0x26L;
+
+    @Test
+    public void classifiesErrorCodes() {
+        assertEquals(RetryPolicy.ErrorClass.TRANSIENT, RetryPolicy.classify(RetryPolicy.ERROR_DEAD_OBJECT));
+        assertEquals(RetryPolicy.ErrorClass.PERSISTENT, RetryPolicy.classify(RetryPolicy.ERROR_BAD_VALUE));
+        assertEquals(RetryPolicy.ErrorClass.RECOVERABLE, RetryPolicy.classify(RetryPolicy.ERROR_INVALID_OPERATION));
+        assertEquals(RetryPolicy.ErrorClass.RECOVERABLE, RetryPolicy.classify(RetryPolicy.ERROR));
+        assertEquals(RetryPolicy.ErrorClass.RECOVERABLE, RetryPolicy.classify(-42));
+    }
+
+    @Test
+    public void backoffStaysWithinJitteredCeiling() {
+        int[] codes = {RetryPolicy.ERROR_DEAD_OBJECT, RetryPolicy.ERROR, RetryPolicy.ERROR_BAD_VALUE};
+        for (int code : codes) {
+            RetryPolicy.ErrorClass errorClass = RetryPolicy.classify(code);
+            for (int attempt = 1; attempt < 8; attempt++) {
+                long ceiling = Math.min(errorClass.baseDelay << (attempt - 1), errorClass.maxDelay);
+                for (int seed = 0; seed < 200; seed++) {
+                    RetryPolicy policy = new RetryPolicy(new Random(SEED + seed));
+                    long delay = 0;
+                    for (int i = 0; i < attempt; i++) {
+                        delay = policy.onFailure(code, 0);
+                    }
+                    assertTrue(errorClass + " attempt " + attempt + " delay " + delay + " below " + ceiling / 2,
+                        delay >= ceiling / 2);
+                    assertTrue(errorClass + " attempt " + attempt + " delay " + delay + " above " + ceiling,
+                        delay <= ceiling);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void backoffIsJittered() {
+        Random random = new Random(SEED);
+        Set<Long> delays = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            delays.add(new RetryPolicy(random).onFailure(RetryPolicy.ERROR, 0));
+        }
+        assertTrue("jitter produced " + delays.size() + " distinct delays", delays.size() > 10);
+    }
+
+    @Test
+    public void sameSeedGivesSameDelays() {
+        RetryPolicy first = new RetryPolicy(new Random(SEED));
+        RetryPolicy second = new RetryPolicy(new Random(SEED));
+        for (int i = 0; i < 7; i++) {
+            assertEquals(first.onFailure(RetryPolicy.ERROR, 0), second.onFailure(RetryPolicy.ERROR, 0));
+        }
+    }
+
+    @Test
+    public void circuitOpensAfterThresholdAndHalfOpensAfterTimeout() {
+        VirtualClock clock = new VirtualClock(1000);
+        RetryPolicy policy = new RetryPolicy(new Random(SEED));
+        for (int i = 0; i < 7; i++) {
+            policy.onFailure(RetryPolicy.ERROR, clock.elapsedMillis());
+            assertEquals(RetryPolicy.CircuitState.CLOSED, policy.getState());
+        }
+
+        assertEquals(30000, policy.onFailure(RetryPolicy.ERROR, clock.elapsedMillis()));
+        assertEquals(RetryPolicy.CircuitState.OPEN, policy.getState());
+        assertEquals(1, policy.getCircuitTrips());
+
+        clock.advanceMillis(29999);
+        assertFalse(policy.allowAttempt(clock.elapsedMillis()));
+        assertEquals(1, policy.remainingOpenTime(clock.elapsedMillis()));
+        assertEquals(1, policy.onFailure(RetryPolicy.ERROR, clock.elapsedMillis()));
+        assertEquals(RetryPolicy.CircuitState.OPEN, policy.getState());
+
+        clock.advanceMillis(1);
+        assertTrue(policy.allowAttempt(clock.elapsedMillis()));
+        assertEquals(RetryPolicy.CircuitState.HALF_OPEN, policy.getState());
+        assertEquals(0, policy.remainingOpenTime(clock.elapsedMillis()));
+    }
+
+    @Test
+    public void halfOpenFailureDoublesOpenTimeUpToCap() {
+        VirtualClock clock = new VirtualClock(1000);
+        RetryPolicy policy = new RetryPolicy(new Random(SEED));
+        long open = 0;
+        for (int i = 0; i < 8; i++) {
+            open = policy.onFailure(RetryPolicy.ERROR_DEAD_OBJECT, clock.elapsedMillis());
+        }
+        assertEquals(30000, open);
+
+        long[] expected = {60000, 120000, 240000, 300000, 300000};
+        for (long duration : expected) {
+            clock.advanceMillis(open);
+            assertTrue(policy.allowAttempt(clock.elapsedMillis()));
+            open = policy.onFailure(RetryPolicy.ERROR_DEAD_OBJECT, clock.elapsedMillis());
+            assertEquals(duration, open);
+            assertEquals(RetryPolicy.CircuitState.OPEN, policy.getState());
+        }
+        assertEquals(1 + expected.length, policy.getCircuitTrips());
+    }
+
+    @Test
+    public void successClosesCircuitAndResetsOpenTime() {
+        VirtualClock clock = new VirtualClock(1000);
+        RetryPolicy policy = new RetryPolicy(new Random(SEED));
+        for (int i = 0; i < 8; i++) {
+            policy.onFailure(RetryPolicy.ERROR, clock.elapsedMillis());
+        }
+        clock.advanceMillis(30000);
+        assertTrue(policy.allowAttempt(clock.elapsedMillis()));
+        assertEquals(60000, policy.onFailure(RetryPolicy.ERROR, clock.elapsedMillis()));
+
+        clock.advanceMillis(60000);
+        assertTrue(policy.allowAttempt(clock.elapsedMillis()));
+        policy.onSuccess();
+        assertEquals(RetryPolicy.CircuitState.CLOSED, policy.getState());
+        assertEquals(0, policy.getAttempts());
+
+        long open = 0;
+        for (int i = 0; i < 8; i++) {
+            open = policy.onFailure(RetryPolicy.ERROR, clock.elapsedMillis());
+        }
+        assertEquals(30000, open);
+    }
+}